@@ -0,0 +1,44 @@
+package org.cyclops.flopper.blockentity;
+
+import net.minecraft.core.BlockPos;
+import net.minecraft.world.level.block.state.BlockState;
+import net.minecraftforge.fluids.capability.IFluidHandler;
+
+import javax.annotation.Nullable;
+
+/**
+ * A flopper outside of a level, of which the neighbouring fluid handlers are set directly
+ * instead of being looked up in the level.
+ * @author rubensworks
+ */
+public class BenchmarkFlopper extends BlockEntityFlopper {
+
+    @Nullable
+    private IFluidHandler target = null;
+    @Nullable
+    private IFluidHandler source = null;
+
+    public BenchmarkFlopper(BlockPos blockPos, BlockState blockState) {
+        super(blockPos, blockState);
+    }
+
+    public void setTarget(@Nullable IFluidHandler target) {
+        this.target = target;
+    }
+
+    public void setSource(@Nullable IFluidHandler source) {
+        this.source = source;
+    }
+
+    @Nullable
+    @Override
+    protected IFluidHandler getTargetHandler() {
+        return this.target;
+    }
+
+    @Nullable
+    @Override
+    protected IFluidHandler getSourceHandler() {
+        return this.source;
+    }
+}
@@ -0,0 +1,296 @@
+package org.cyclops.flopper.blockentity;
+
+import it.unimi.dsi.fastutil.longs.Long2ObjectMap;
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+import net.minecraft.core.BlockPos;
+import net.minecraft.core.Direction;
+import net.minecraft.core.Holder;
+import net.minecraft.core.Registry;
+import net.minecraft.core.RegistryAccess;
+import net.minecraft.sounds.SoundEvent;
+import net.minecraft.sounds.SoundSource;
+import net.minecraft.util.profiling.InactiveProfiler;
+import net.minecraft.world.Difficulty;
+import net.minecraft.world.entity.Entity;
+import net.minecraft.world.entity.player.Player;
+import net.minecraft.world.item.crafting.RecipeManager;
+import net.minecraft.world.level.GameRules;
+import net.minecraft.world.level.Level;
+import net.minecraft.world.level.biome.Biome;
+import net.minecraft.world.level.biome.Biomes;
+import net.minecraft.world.level.block.Block;
+import net.minecraft.world.level.block.Blocks;
+import net.minecraft.world.level.block.entity.BlockEntity;
+import net.minecraft.world.level.block.state.BlockState;
+import net.minecraft.world.level.chunk.ChunkSource;
+import net.minecraft.world.level.dimension.BuiltinDimensionTypes;
+import net.minecraft.world.level.dimension.DimensionType;
+import net.minecraft.world.level.entity.LevelEntityGetter;
+import net.minecraft.world.level.gameevent.GameEvent;
+import net.minecraft.world.level.material.Fluid;
+import net.minecraft.world.level.material.FluidState;
+import net.minecraft.world.level.saveddata.maps.MapItemSavedData;
+import net.minecraft.world.level.storage.WritableLevelData;
+import net.minecraft.world.phys.Vec3;
+import net.minecraft.world.scores.Scoreboard;
+import net.minecraft.world.ticks.BlackholeTickAccess;
+import net.minecraft.world.ticks.LevelTickAccess;
+
+import javax.annotation.Nullable;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A minimal server level in the overworld that only stores block states, without chunks, entities or ticks.
+ * Block changes don't cause block updates, lighting or neighbour notifications,
+ * so that benchmarks only measure what floppers do themselves.
+ * Everything else that is not needed by floppers is unsupported.
+ * @author rubensworks
+ */
+public class BenchmarkLevel extends Level {
+
+    private final Long2ObjectMap<BlockState> blockStates = new Long2ObjectOpenHashMap<>();
+
+    public BenchmarkLevel() {
+        super(new LevelData(), Level.OVERWORLD, getDimensionType(), () -> InactiveProfiler.INSTANCE, false, false, 0, 1_000_000);
+        this.blockStates.defaultReturnValue(Blocks.AIR.defaultBlockState());
+    }
+
+    protected static Holder<DimensionType> getDimensionType() {
+        return RegistryAccess.BUILTIN.get().registryOrThrow(Registry.DIMENSION_TYPE_REGISTRY).getHolderOrThrow(BuiltinDimensionTypes.OVERWORLD);
+    }
+
+    @Override
+    public BlockState getBlockState(BlockPos pos) {
+        return this.blockStates.get(pos.asLong());
+    }
+
+    @Override
+    public FluidState getFluidState(BlockPos pos) {
+        return getBlockState(pos).getFluidState();
+    }
+
+    @Override
+    public boolean setBlock(BlockPos pos, BlockState state, int flags, int recursionLeft) {
+        BlockState previous = state.isAir() ? this.blockStates.remove(pos.asLong()) : this.blockStates.put(pos.asLong(), state);
+        return previous != state;
+    }
+
+    @Nullable
+    @Override
+    public BlockEntity getBlockEntity(BlockPos pos) {
+        return null;
+    }
+
+    @Override
+    public boolean hasChunk(int chunkX, int chunkZ) {
+        return true;
+    }
+
+    @Override
+    public void blockEntityChanged(BlockPos pos) {
+
+    }
+
+    @Override
+    public void sendBlockUpdated(BlockPos pos, BlockState oldState, BlockState newState, int flags) {
+
+    }
+
+    @Override
+    public void playSeededSound(@Nullable Player player, double x, double y, double z, SoundEvent sound, SoundSource source, float volume, float pitch, long seed) {
+
+    }
+
+    @Override
+    public void playSeededSound(@Nullable Player player, Entity entity, SoundEvent sound, SoundSource source, float volume, float pitch, long seed) {
+
+    }
+
+    @Override
+    public void levelEvent(@Nullable Player player, int type, BlockPos pos, int data) {
+
+    }
+
+    @Override
+    public void gameEvent(GameEvent event, Vec3 position, GameEvent.Context context) {
+
+    }
+
+    @Override
+    public void destroyBlockProgress(int breakerId, BlockPos pos, int progress) {
+
+    }
+
+    @Override
+    public String gatherChunkSourceStats() {
+        return "";
+    }
+
+    @Nullable
+    @Override
+    public Entity getEntity(int id) {
+        return null;
+    }
+
+    @Override
+    public List<? extends Player> players() {
+        return Collections.emptyList();
+    }
+
+    @Nullable
+    @Override
+    public MapItemSavedData getMapData(String id) {
+        return null;
+    }
+
+    @Override
+    public void setMapData(String id, MapItemSavedData data) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public int getFreeMapId() {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public Scoreboard getScoreboard() {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public RecipeManager getRecipeManager() {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    protected LevelEntityGetter<Entity> getEntities() {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public LevelTickAccess<Block> getBlockTicks() {
+        return BlackholeTickAccess.emptyLevelList();
+    }
+
+    @Override
+    public LevelTickAccess<Fluid> getFluidTicks() {
+        return BlackholeTickAccess.emptyLevelList();
+    }
+
+    @Override
+    public ChunkSource getChunkSource() {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public float getShade(Direction direction, boolean shade) {
+        return 1.0F;
+    }
+
+    @Override
+    public Holder<Biome> getUncachedNoiseBiome(int x, int y, int z) {
+        return registryAccess().registryOrThrow(Registry.BIOME_REGISTRY).getHolderOrThrow(Biomes.PLAINS);
+    }
+
+    @Override
+    public RegistryAccess registryAccess() {
+        return RegistryAccess.BUILTIN.get();
+    }
+
+    /**
+     * Level data of a level that always stays at the start of the first day.
+     */
+    public static class LevelData implements WritableLevelData {
+
+        private final GameRules gameRules = new GameRules();
+        private boolean raining = false;
+
+        @Override
+        public void setXSpawn(int xSpawn) {
+
+        }
+
+        @Override
+        public void setYSpawn(int ySpawn) {
+
+        }
+
+        @Override
+        public void setZSpawn(int zSpawn) {
+
+        }
+
+        @Override
+        public void setSpawnAngle(float spawnAngle) {
+
+        }
+
+        @Override
+        public int getXSpawn() {
+            return 0;
+        }
+
+        @Override
+        public int getYSpawn() {
+            return 64;
+        }
+
+        @Override
+        public int getZSpawn() {
+            return 0;
+        }
+
+        @Override
+        public float getSpawnAngle() {
+            return 0;
+        }
+
+        @Override
+        public long getGameTime() {
+            return 0;
+        }
+
+        @Override
+        public long getDayTime() {
+            return 0;
+        }
+
+        @Override
+        public boolean isThundering() {
+            return false;
+        }
+
+        @Override
+        public boolean isRaining() {
+            return raining;
+        }
+
+        @Override
+        public void setRaining(boolean raining) {
+            this.raining = raining;
+        }
+
+        @Override
+        public boolean isHardcore() {
+            return false;
+        }
+
+        @Override
+        public GameRules getGameRules() {
+            return gameRules;
+        }
+
+        @Override
+        public Difficulty getDifficulty() {
+            return Difficulty.NORMAL;
+        }
+
+        @Override
+        public boolean isDifficultyLocked() {
+            return false;
+        }
+    }
+
+}
@@ -0,0 +1,61 @@
+package org.cyclops.flopper.blockentity;
+
+import net.minecraft.world.level.material.Fluid;
+import net.minecraftforge.fluids.FluidStack;
+import net.minecraftforge.fluids.capability.IFluidHandler;
+
+import javax.annotation.Nonnull;
+
+/**
+ * A fluid handler neighbour that acts as an infinite source and sink of a single fluid,
+ * so that benchmarks never run dry or fill up.
+ * @author rubensworks
+ */
+public class FakeFluidHandler implements IFluidHandler {
+
+    private final Fluid fluid;
+    private final FluidStack contents;
+
+    public FakeFluidHandler(Fluid fluid) {
+        this.fluid = fluid;
+        this.contents = new FluidStack(fluid, Integer.MAX_VALUE);
+    }
+
+    @Override
+    public int getTanks() {
+        return 1;
+    }
+
+    @Nonnull
+    @Override
+    public FluidStack getFluidInTank(int tank) {
+        return contents;
+    }
+
+    @Override
+    public int getTankCapacity(int tank) {
+        return Integer.MAX_VALUE;
+    }
+
+    @Override
+    public boolean isFluidValid(int tank, @Nonnull FluidStack stack) {
+        return stack.getFluid() == fluid;
+    }
+
+    @Override
+    public int fill(FluidStack resource, FluidAction action) {
+        return resource.getFluid() == fluid ? resource.getAmount() : 0;
+    }
+
+    @Nonnull
+    @Override
+    public FluidStack drain(FluidStack resource, FluidAction action) {
+        return resource.getFluid() == fluid ? drain(resource.getAmount(), action) : FluidStack.EMPTY;
+    }
+
+    @Nonnull
+    @Override
+    public FluidStack drain(int maxDrain, FluidAction action) {
+        return new FluidStack(fluid, maxDrain);
+    }
+}
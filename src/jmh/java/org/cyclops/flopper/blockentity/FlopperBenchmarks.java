@@ -0,0 +1,44 @@
+package org.cyclops.flopper.blockentity;
+
+import net.minecraft.SharedConstants;
+import net.minecraft.core.BlockPos;
+import net.minecraft.core.Direction;
+import net.minecraft.server.Bootstrap;
+import net.minecraft.world.level.block.Blocks;
+import org.cyclops.flopper.block.BlockFlopper;
+
+/**
+ * Helpers for running flopper benchmarks without a game client.
+ * @author rubensworks
+ */
+public final class FlopperBenchmarks {
+
+    private static boolean bootstrapped = false;
+
+    private FlopperBenchmarks() {
+
+    }
+
+    /**
+     * Bootstrap the vanilla registries, so that blocks and fluids can be used.
+     */
+    public static synchronized void bootstrap() {
+        if (!bootstrapped) {
+            SharedConstants.tryDetectVersion();
+            Bootstrap.bootStrap();
+            bootstrapped = true;
+        }
+    }
+
+    /**
+     * Create a flopper that is not placed in a level.
+     * It has the block state of a hopper, which has the same facing and enabled properties as a flopper.
+     * @param pos The position of the flopper.
+     * @param facing The side the flopper pushes to.
+     * @return A new flopper without neighbours.
+     */
+    public static BenchmarkFlopper createFlopper(BlockPos pos, Direction facing) {
+        return new BenchmarkFlopper(pos, Blocks.HOPPER.defaultBlockState().setValue(BlockFlopper.FACING, facing));
+    }
+
+}
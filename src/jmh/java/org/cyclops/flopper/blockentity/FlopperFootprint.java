@@ -0,0 +1,50 @@
+package org.cyclops.flopper.blockentity;
+
+import net.minecraft.core.BlockPos;
+import net.minecraft.world.level.block.Blocks;
+import net.minecraft.world.level.block.state.BlockState;
+import org.openjdk.jol.info.ClassLayout;
+import org.openjdk.jol.info.GraphLayout;
+
+/**
+ * Reports the retained heap bytes per flopper block entity,
+ * and fails if they exceed the budget that is given as first argument.
+ * Without a budget, this only reports.
+ * @author rubensworks
+ */
+public final class FlopperFootprint {
+
+    private static final int COUNT = 1000;
+
+    private FlopperFootprint() {
+
+    }
+
+    public static void main(String[] args) {
+        long budget = args.length > 0 ? Long.parseLong(args[0]) : Long.MAX_VALUE;
+        FlopperBenchmarks.bootstrap();
+        BlockState blockState = Blocks.HOPPER.defaultBlockState();
+
+        // The difference between one and many floppers excludes everything that is shared between them
+        long bytesSingle = GraphLayout.parseInstance((Object) create(1, blockState)).totalSize();
+        long bytesMany = GraphLayout.parseInstance((Object) create(COUNT, blockState)).totalSize();
+        long bytesPerFlopper = (bytesMany - bytesSingle) / (COUNT - 1);
+
+        System.out.println(ClassLayout.parseClass(BlockEntityFlopper.class).toPrintable());
+        System.out.println(GraphLayout.parseInstance(create(1, blockState)[0]).toFootprint());
+        System.out.printf("Retained bytes per flopper: %s (budget: %s)%n", bytesPerFlopper, budget);
+        if (bytesPerFlopper > budget) {
+            System.err.printf("Flopper footprint of %s bytes exceeds the budget of %s bytes%n", bytesPerFlopper, budget);
+            System.exit(1);
+        }
+    }
+
+    private static BlockEntityFlopper[] create(int count, BlockState blockState) {
+        BlockEntityFlopper[] floppers = new BlockEntityFlopper[count];
+        for (int i = 0; i < count; i++) {
+            floppers[i] = new BlockEntityFlopper(new BlockPos(i, 64, 0), blockState);
+        }
+        return floppers;
+    }
+
+}
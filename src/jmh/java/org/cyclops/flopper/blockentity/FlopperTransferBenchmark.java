@@ -0,0 +1,131 @@
+package org.cyclops.flopper.blockentity;
+
+import net.minecraft.core.BlockPos;
+import net.minecraft.core.Direction;
+import net.minecraft.world.level.material.Fluids;
+import net.minecraftforge.fluids.FluidStack;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks for {@link BlockEntityFlopper#pushFluidsToTank()} and {@link BlockEntityFlopper#pullFluidsFromTank()},
+ * and for the hops of a {@link FlopperChain}.
+ * Each push is followed by a pull or a refill that undoes it, so that the floppers never run dry or fill up.
+ * @author rubensworks
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class FlopperTransferBenchmark {
+
+    private BenchmarkFlopper neighbourFlopper;
+    private BenchmarkFlopper tankFlopper;
+    private BenchmarkFlopper idleFlopper;
+
+    @Setup
+    public void setup() {
+        FlopperBenchmarks.bootstrap();
+
+        FakeFluidHandler neighbour = new FakeFluidHandler(Fluids.WATER);
+        neighbourFlopper = createHalfFull(BlockPos.ZERO);
+        neighbourFlopper.setTarget(neighbour);
+        neighbourFlopper.setSource(neighbour);
+
+        // Pushes into and pulls from another flopper
+        BlockEntityFlopper other = FlopperBenchmarks.createFlopper(BlockPos.ZERO.below(), Direction.DOWN);
+        tankFlopper = createHalfFull(BlockPos.ZERO);
+        tankFlopper.setTarget(other.getTank());
+        tankFlopper.setSource(other.getTank());
+
+        BlockEntityFlopper empty = FlopperBenchmarks.createFlopper(BlockPos.ZERO.below(), Direction.DOWN);
+        idleFlopper = FlopperBenchmarks.createFlopper(BlockPos.ZERO, Direction.DOWN);
+        idleFlopper.setTarget(empty.getTank());
+        idleFlopper.setSource(empty.getTank());
+    }
+
+    protected static BenchmarkFlopper createHalfFull(BlockPos pos) {
+        BenchmarkFlopper flopper = FlopperBenchmarks.createFlopper(pos, Direction.DOWN);
+        flopper.getTank().setFluid(new FluidStack(Fluids.WATER, flopper.getTank().getCapacity() / 2));
+        return flopper;
+    }
+
+    @Benchmark
+    public boolean pushPullNeighbour() {
+        return neighbourFlopper.pushFluidsToTank() & neighbourFlopper.pullFluidsFromTank();
+    }
+
+    @Benchmark
+    public boolean pushPullFlopper() {
+        return tankFlopper.pushFluidsToTank() & tankFlopper.pullFluidsFromTank();
+    }
+
+    @Benchmark
+    public boolean idlePushPull() {
+        return idleFlopper.pushFluidsToTank() | idleFlopper.pullFluidsFromTank();
+    }
+
+    /**
+     * Moves fluid through every hop of a full chain,
+     * once by letting each member push by itself like unchained floppers, and once like {@link FlopperChain#transfer()}.
+     * The fluid arriving at the tail is moved back to the head afterwards.
+     */
+    @Benchmark
+    public int saturatedChainUnchained(ChainState state) {
+        BenchmarkFlopper[] members = state.unchained;
+        for (int i = members.length - 2; i >= 0; i--) {
+            members[i].pushFluidsToTank();
+        }
+        return FlopperTransfers.move(members[members.length - 1].getTank(), members[0].getTank(), Integer.MAX_VALUE);
+    }
+
+    @Benchmark
+    public int saturatedChain(ChainState state) {
+        state.chain.transfer();
+        return FlopperTransfers.move(state.chain.getTail().getTank(), state.chain.getHead().getTank(), Integer.MAX_VALUE);
+    }
+
+    @State(Scope.Thread)
+    public static class ChainState {
+
+        @Param({"16", "128"})
+        public int chainLength;
+
+        private BenchmarkFlopper[] unchained;
+        private FlopperChain chain;
+
+        @Setup
+        public void setup() {
+            FlopperBenchmarks.bootstrap();
+            unchained = createMembers();
+            BenchmarkFlopper[] members = createMembers();
+            chain = new FlopperChain(members);
+            for (int i = 0; i < members.length; i++) {
+                members[i].setChain(chain, i);
+            }
+        }
+
+        protected BenchmarkFlopper[] createMembers() {
+            BenchmarkFlopper[] members = new BenchmarkFlopper[chainLength];
+            for (int i = 0; i < chainLength; i++) {
+                members[i] = FlopperBenchmarks.createFlopper(new BlockPos(i, 64, 0), Direction.EAST);
+                if (i > 0) {
+                    members[i - 1].setTarget(members[i].getTank());
+                }
+            }
+            for (int i = 0; i < chainLength - 1; i++) {
+                members[i].getTank().setFluid(new FluidStack(Fluids.WATER, members[i].getTank().getCapacity()));
+            }
+            return members;
+        }
+
+    }
+
+}
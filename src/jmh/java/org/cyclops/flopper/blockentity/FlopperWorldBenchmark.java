@@ -0,0 +1,96 @@
+package org.cyclops.flopper.blockentity;
+
+import net.minecraft.core.BlockPos;
+import net.minecraft.core.Direction;
+import net.minecraft.world.level.block.Blocks;
+import net.minecraft.world.level.block.LiquidBlock;
+import net.minecraft.world.level.material.Fluids;
+import net.minecraftforge.fluids.FluidStack;
+import net.minecraftforge.fluids.capability.IFluidHandler;
+import org.cyclops.flopper.block.BlockFlopperConfig;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks for {@link BlockEntityFlopper#pushFluidsToWorld()}, {@link BlockEntityFlopper#pullFluidsFromWorld()}
+ * and {@link FluidHandlerBlock}, in a {@link BenchmarkLevel}.
+ * Each placement is picked up again by a flopper below it, and the fluid is moved back to the placing flopper,
+ * so that every invocation changes the same blocks.
+ * @author rubensworks
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class FlopperWorldBenchmark {
+
+    @Param({"false", "true"})
+    public boolean bulk;
+
+    private BenchmarkFlopper placer;
+    private BenchmarkFlopper picker;
+    private BenchmarkFlopper idlePlacer;
+    private BenchmarkFlopper idlePicker;
+    private FluidHandlerBlock sourceBlock;
+
+    @Setup
+    public void setup() {
+        FlopperBenchmarks.bootstrap();
+        BlockFlopperConfig.bulkWorldPickup = bulk;
+        BlockFlopperConfig.bulkWorldPlacement = bulk;
+
+        // The placer places into the space between both floppers, from which the picker pulls
+        BenchmarkLevel level = new BenchmarkLevel();
+        placer = createFlopper(level, new BlockPos(0, 2, 0), Direction.DOWN);
+        placer.getTank().setFluid(new FluidStack(Fluids.WATER, placer.getTank().getCapacity()));
+        picker = createFlopper(level, new BlockPos(0, 0, 0), Direction.DOWN);
+
+        // Pushes into stone, and pulls from flowing water
+        idlePlacer = createFlopper(level, new BlockPos(16, 0, 0), Direction.NORTH);
+        idlePlacer.getTank().setFluid(new FluidStack(Fluids.WATER, idlePlacer.getTank().getCapacity() / 2));
+        level.setBlock(idlePlacer.getBlockPos().north(), Blocks.STONE.defaultBlockState(), 0);
+        idlePicker = createFlopper(level, new BlockPos(32, 0, 0), Direction.DOWN);
+        level.setBlock(idlePicker.getBlockPos().above(), Blocks.WATER.defaultBlockState().setValue(LiquidBlock.LEVEL, 3), 0);
+
+        BlockPos sourcePos = new BlockPos(48, 0, 0);
+        level.setBlock(sourcePos, Blocks.WATER.defaultBlockState(), 0);
+        sourceBlock = new FluidHandlerBlock(level.getBlockState(sourcePos), level, sourcePos);
+    }
+
+    protected static BenchmarkFlopper createFlopper(BenchmarkLevel level, BlockPos pos, Direction facing) {
+        BenchmarkFlopper flopper = FlopperBenchmarks.createFlopper(pos, facing);
+        level.setBlock(pos, flopper.getBlockState(), 0);
+        flopper.setLevel(level);
+        return flopper;
+    }
+
+    @Benchmark
+    public int pushPullWorld() {
+        placer.pushFluidsToWorld();
+        picker.pullFluidsFromWorld();
+        return FlopperTransfers.move(picker.getTank(), placer.getTank(), Integer.MAX_VALUE);
+    }
+
+    @Benchmark
+    public boolean idlePushWorld() {
+        return idlePlacer.pushFluidsToWorld();
+    }
+
+    @Benchmark
+    public boolean idlePullWorld() {
+        return idlePicker.pullFluidsFromWorld();
+    }
+
+    @Benchmark
+    public FluidStack drainSourceBlock() {
+        return sourceBlock.drain(Integer.MAX_VALUE, IFluidHandler.FluidAction.SIMULATE);
+    }
+
+}
@@ -1,6 +1,11 @@
 package org.cyclops.flopper;
 
+import com.mojang.brigadier.builder.LiteralArgumentBuilder;
+import net.minecraft.commands.CommandBuildContext;
+import net.minecraft.commands.CommandSourceStack;
+import net.minecraft.commands.Commands;
 import net.minecraft.world.item.CreativeModeTab;
+import net.minecraftforge.common.MinecraftForge;
 import net.minecraftforge.fml.common.Mod;
 import org.apache.logging.log4j.Level;
 import org.cyclops.cyclopscore.config.ConfigHandler;
@@ -12,6 +17,13 @@ import org.cyclops.flopper.block.BlockFlopperConfig;
 import org.cyclops.flopper.proxy.ClientProxy;
 import org.cyclops.flopper.proxy.CommonProxy;
 import org.cyclops.flopper.blockentity.BlockEntityFlopperConfig;
+import org.cyclops.flopper.blockentity.FlopperFluidAttributes;
+import org.cyclops.flopper.blockentity.FlopperNeighbourChunks;
+import org.cyclops.flopper.blockentity.FlopperScheduler;
+import org.cyclops.flopper.blockentity.FlopperTickCounter;
+import org.cyclops.flopper.blockentity.FlopperTickManager;
+import org.cyclops.flopper.command.CommandLoops;
+import org.cyclops.flopper.command.CommandStats;
 
 /**
  * The main mod class of this mod.
@@ -28,6 +40,21 @@ public class Flopper extends ModBaseVersionable<Flopper> {
 
     public Flopper() {
         super(Reference.MOD_ID, (instance) -> _instance = instance);
+        MinecraftForge.EVENT_BUS.register(FlopperTickCounter.class);
+        MinecraftForge.EVENT_BUS.register(FlopperScheduler.class);
+        MinecraftForge.EVENT_BUS.register(FlopperTickManager.class);
+        MinecraftForge.EVENT_BUS.register(FlopperFluidAttributes.class);
+        MinecraftForge.EVENT_BUS.register(FlopperNeighbourChunks.class);
+    }
+
+    @Override
+    protected LiteralArgumentBuilder<CommandSourceStack> constructBaseCommand(Commands.CommandSelection selection, CommandBuildContext context) {
+        LiteralArgumentBuilder<CommandSourceStack> root = super.constructBaseCommand(selection, context);
+
+        root.then(CommandStats.make());
+        root.then(CommandLoops.make());
+
+        return root;
     }
 
     @Override
@@ -22,6 +22,9 @@ public class GeneralConfig extends DummyConfig {
     @ConfigurableProperty(category = "core", comment = "If mod compatibility loader should crash hard if errors occur in that process.", requiresMcRestart = true)
     public static boolean crashOnModCompatCrash = false;
 
+    @ConfigurableProperty(category = "core", comment = "If per-flopper performance metrics should be collected, which can be inspected with '/flopper stats'.", isCommandable = true)
+    public static boolean metrics = false;
+
     @ConfigurableProperty(category = "core", comment = "If an anonymous mod startup analytics request may be sent to our analytics service.")
     public static boolean analytics = true;
 
@@ -48,9 +48,13 @@ import org.cyclops.cyclopscore.helper.FluidHelpers;
 import org.cyclops.cyclopscore.helper.InventoryHelpers;
 import org.cyclops.flopper.RegistryEntries;
 import org.cyclops.flopper.blockentity.BlockEntityFlopper;
+import org.cyclops.flopper.blockentity.FlopperDistributor;
+import org.cyclops.flopper.blockentity.FlopperFluidFilter;
 
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
+import java.util.Locale;
+import java.util.Optional;
 import java.util.function.BiFunction;
 
 /**
@@ -89,7 +93,7 @@ public class BlockFlopper extends BlockWithEntity {
     @Override
     @Nullable
     public <T extends BlockEntity> BlockEntityTicker<T> getTicker(Level level, BlockState blockState, BlockEntityType<T> blockEntityType) {
-        return level.isClientSide ? null : createTickerHelper(blockEntityType, RegistryEntries.BLOCK_ENTITY_FLOPPER, new BlockEntityFlopper.Ticker());
+        return level.isClientSide || BlockFlopperConfig.centralTicking ? null : createTickerHelper(blockEntityType, RegistryEntries.BLOCK_ENTITY_FLOPPER, new BlockEntityFlopper.Ticker());
     }
 
     @Override
@@ -158,6 +162,8 @@ public class BlockFlopper extends BlockWithEntity {
     public void neighborChanged(BlockState state, Level worldIn, BlockPos pos, Block blockIn, BlockPos fromPos, boolean isMoving) {
         super.neighborChanged(state, worldIn, pos, blockIn, fromPos, isMoving);
         this.updateState(worldIn, pos, state);
+        BlockEntityHelpers.get(worldIn, pos, BlockEntityFlopper.class)
+                .ifPresent(tile -> tile.onNeighborChanged(fromPos));
     }
 
     private void updateState(Level worldIn, BlockPos pos, BlockState state) {
@@ -196,7 +202,23 @@ public class BlockFlopper extends BlockWithEntity {
                 .map(fluidHandler -> {
                     ItemStack itemStack = player.getItemInHand(hand);
                     if (itemStack.isEmpty()) {
+                        if (player.isCrouching() && BlockFlopperConfig.distributor) {
+                            // Switch the distributor mode if sneaking
+                            if (!world.isClientSide) {
+                                BlockEntityHelpers.get(world, blockPos, BlockEntityFlopper.class)
+                                        .ifPresent(tile -> {
+                                            FlopperDistributor.Mode mode = tile.cycleDistributorMode();
+                                            player.displayClientMessage(Component.translatable("block.flopper.flopper.distributor."
+                                                    + (mode == null ? "off" : mode.name().toLowerCase(Locale.ROOT))), true);
+                                        });
+                            }
+                            return InteractionResult.SUCCESS;
+                        }
                         if (BlockFlopperConfig.showContentsStatusMessageOnClick) {
+                            if (world.isClientSide) {
+                                // The client is only synced at intervals, so it may not know the current amount, the server will send the message
+                                return InteractionResult.SUCCESS;
+                            }
                             // If the hand is empty, show the tank contents
                             FluidStack fluidStack = fluidHandler.drain(Integer.MAX_VALUE, IFluidHandler.FluidAction.SIMULATE);
                             if (fluidStack.isEmpty()) {
@@ -233,6 +255,22 @@ public class BlockFlopper extends BlockWithEntity {
                                 }
                             }
                             return InteractionResult.SUCCESS;
+                        } else if (player.isCrouching()) {
+                            // Toggle the fluid in the item in the filter if sneaking with a container that can't be filled
+                            Optional<FluidStack> containedFluid = FluidUtil.getFluidContained(itemStack);
+                            if (containedFluid.isPresent()) {
+                                if (!world.isClientSide) {
+                                    FluidStack fluidStack = containedFluid.get();
+                                    BlockEntityHelpers.get(world, blockPos, BlockEntityFlopper.class)
+                                            .ifPresent(tile -> {
+                                                FlopperFluidFilter.Entry entry = tile.cycleFilter(fluidStack.getFluid());
+                                                player.displayClientMessage(Component.translatable(
+                                                        "block.flopper.flopper.filter." + entry.name().toLowerCase(Locale.ROOT),
+                                                        Component.translatable(fluidStack.getTranslationKey())), true);
+                                            });
+                                }
+                                return InteractionResult.SUCCESS;
+                            }
                         }
                     }
                     return InteractionResult.PASS;
@@ -271,9 +309,8 @@ public class BlockFlopper extends BlockWithEntity {
 
     @Override
     public int getAnalogOutputSignal(BlockState blockState, Level worldIn, BlockPos pos) {
-        return BlockEntityHelpers.get(worldIn, pos, org.cyclops.flopper.blockentity.BlockEntityFlopper.class)
-                .map(tile -> tile.getTank().getFluidAmount() * 8 / tile.getTank().getCapacity())
-                .orElse(0);
+        BlockEntity blockEntity = worldIn.getBlockEntity(pos);
+        return blockEntity instanceof BlockEntityFlopper ? ((BlockEntityFlopper) blockEntity).getComparatorSignal() : 0;
     }
 
     @SubscribeEvent
@@ -44,9 +44,69 @@ public class BlockFlopperConfig extends BlockConfig {
     @ConfigurableProperty(category = "machine", comment = "The number of ticks each flopper should sleep after picking up or placing fluids.", isCommandable = true, configLocation = ModConfig.Type.SERVER)
     public static int workWorldCooldown = 20;
 
+    @ConfigurableProperty(category = "machine", comment = "If linear chains of floppers pushing into each other should be handled as a single pipeline by their head.", isCommandable = true, configLocation = ModConfig.Type.SERVER)
+    public static boolean chainTransfers = true;
+
+    @ConfigurableProperty(category = "machine", comment = "The number of ticks each flopper should sleep after a transfer when it is part of a loop in which fluids circulate forever, such floppers can be listed with '/flopper loops'.", isCommandable = true, configLocation = ModConfig.Type.SERVER)
+    public static int loopCooldown = 100;
+
+    @ConfigurableProperty(category = "machine", comment = "The number of ticks after which floppers check again whether they are part of a loop.", isCommandable = true, configLocation = ModConfig.Type.SERVER)
+    public static int loopCheckInterval = 600;
+
+    @ConfigurableProperty(category = "machine", comment = "The number of consecutive failed transfer attempts after which a flopper goes to sleep, 0 disables sleeping.", isCommandable = true, configLocation = ModConfig.Type.SERVER)
+    public static int sleepAfterFailedAttempts = 20;
+
+    @ConfigurableProperty(category = "machine", comment = "The number of ticks after which a sleeping flopper wakes up by itself to check for work.", isCommandable = true, configLocation = ModConfig.Type.SERVER)
+    public static int sleepWakeupTicks = 100;
+
+    @ConfigurableProperty(category = "machine", comment = "The maximum number of ticks a flopper waits between consecutive failed transfer attempts, the wait time doubles after each failure, 0 disables this back-off.", isCommandable = true, configLocation = ModConfig.Type.SERVER)
+    public static int backoffMaxTicks = 40;
+
+    @ConfigurableProperty(category = "machine", comment = "The maximum number of flopper transfer attempts across the whole server per tick, the remaining floppers are deferred to later ticks, 0 means unlimited.", isCommandable = true, configLocation = ModConfig.Type.SERVER)
+    public static int operationsPerTick = 0;
+
+    @ConfigurableProperty(category = "machine", comment = "If all floppers of a world should be ticked by a single manager that only handles the floppers that are due, instead of each flopper ticking by itself.", requiresMcRestart = true, configLocation = ModConfig.Type.SERVER)
+    public static boolean centralTicking = true;
+
+    @ConfigurableProperty(category = "machine", comment = "The minimum number of ticks between two syncs of the tank contents of a flopper to clients.", isCommandable = true, configLocation = ModConfig.Type.SERVER)
+    public static int syncInterval = 5;
+
+    @ConfigurableProperty(category = "machine", comment = "If the transfers of floppers between plain tanks should be planned in parallel on multiple threads, this requires centralTicking.", isCommandable = true, configLocation = ModConfig.Type.SERVER)
+    public static boolean parallelPlanning = false;
+
+    @ConfigurableProperty(category = "machine", comment = "The minimum number of floppers that must be due in the same tick for their transfers to be planned in parallel.", isCommandable = true, configLocation = ModConfig.Type.SERVER)
+    public static int parallelPlanningThreshold = 256;
+
+    @ConfigurableProperty(category = "machine", comment = "If floppers in chunks that are loaded again should catch up on the transfers between tanks they would have done while they were unloaded.", isCommandable = true, configLocation = ModConfig.Type.SERVER)
+    public static boolean catchUp = false;
+
+    @ConfigurableProperty(category = "machine", comment = "The maximum number of unloaded ticks floppers can catch up on.", isCommandable = true, configLocation = ModConfig.Type.SERVER)
+    public static int catchUpMaxTicks = 24000;
+
+    @ConfigurableProperty(category = "machine", comment = "If floppers should pick up all connected source blocks above them in one go, as far as their tank allows, instead of one block at a time.", isCommandable = true, configLocation = ModConfig.Type.SERVER)
+    public static boolean bulkWorldPickup = false;
+
+    @ConfigurableProperty(category = "machine", comment = "The maximum distance along each axis in which fluid blocks are picked up in bulk.", isCommandable = true, configLocation = ModConfig.Type.SERVER)
+    public static int bulkWorldRadius = 8;
+
+    @ConfigurableProperty(category = "machine", comment = "If floppers should place multiple fluid blocks in the area in front of them in one go, instead of one block at a time.", isCommandable = true, configLocation = ModConfig.Type.SERVER)
+    public static boolean bulkWorldPlacement = false;
+
+    @ConfigurableProperty(category = "machine", comment = "The maximum number of fluid blocks that are placed in one go in bulk placement mode.", isCommandable = true, configLocation = ModConfig.Type.SERVER)
+    public static int bulkWorldPlacementBlocks = 16;
+
+    @ConfigurableProperty(category = "machine", comment = "If floppers can be switched to distributor mode by sneak-using them with an empty hand, in which they push into all adjacent tanks except the one above. This replaces the contents status message when sneaking.", isCommandable = true, configLocation = ModConfig.Type.SERVER)
+    public static boolean distributor = false;
+
     @ConfigurableProperty(category = "machine", comment = "If the contained fluid should be rendered.", isCommandable = true, requiresMcRestart = true, configLocation = ModConfig.Type.CLIENT)
     public static boolean renderFluid = true;
 
+    @ConfigurableProperty(category = "machine", comment = "The maximum distance in blocks at which the contained fluid is rendered.", isCommandable = true, configLocation = ModConfig.Type.CLIENT)
+    public static int renderFluidDistance = 32;
+
+    @ConfigurableProperty(category = "machine", comment = "If the contained fluid should be rendered as part of the static block model instead of every frame, its level will be shown in coarser steps.", isCommandable = true, requiresMcRestart = true, configLocation = ModConfig.Type.CLIENT)
+    public static boolean renderFluidStatic = false;
+
     @ConfigurableProperty(category = "machine", comment = "If a status message with the flopper contents should be shown to the player on right click without an item.", isCommandable = true)
     public static boolean showContentsStatusMessageOnClick = true;
 
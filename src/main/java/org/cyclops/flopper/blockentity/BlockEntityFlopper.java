@@ -3,33 +3,52 @@ package org.cyclops.flopper.blockentity;
 import net.minecraft.core.BlockPos;
 import net.minecraft.core.Direction;
 import net.minecraft.nbt.CompoundTag;
+import net.minecraft.nbt.Tag;
+import net.minecraft.network.Connection;
+import net.minecraft.network.protocol.game.ClientboundBlockEntityDataPacket;
+import net.minecraft.resources.ResourceLocation;
+import net.minecraft.server.level.ServerLevel;
 import net.minecraft.sounds.SoundEvent;
 import net.minecraft.sounds.SoundSource;
+import net.minecraft.world.level.ChunkPos;
 import net.minecraft.world.level.Level;
+import net.minecraft.world.level.block.Block;
 import net.minecraft.world.level.block.Blocks;
 import net.minecraft.world.level.block.LiquidBlock;
 import net.minecraft.world.level.block.SimpleWaterloggedBlock;
 import net.minecraft.world.level.block.state.BlockState;
 import net.minecraft.world.level.material.Fluid;
-import net.minecraft.world.level.material.Material;
+import net.minecraft.world.level.material.FluidState;
+import net.minecraft.world.level.material.Fluids;
+import net.minecraftforge.client.model.data.EmptyModelData;
+import net.minecraftforge.client.model.data.IModelData;
+import net.minecraftforge.client.model.data.ModelDataMap;
+import net.minecraftforge.client.model.data.ModelProperty;
+import net.minecraftforge.common.capabilities.Capability;
 import net.minecraftforge.common.util.LazyOptional;
 import net.minecraftforge.fluids.FluidStack;
 import net.minecraftforge.fluids.FluidUtil;
 import net.minecraftforge.fluids.capability.CapabilityFluidHandler;
 import net.minecraftforge.fluids.capability.IFluidHandler;
-import net.minecraftforge.fluids.capability.wrappers.BlockWrapper;
+import net.minecraftforge.registries.ForgeRegistries;
 import org.cyclops.cyclopscore.blockentity.BlockEntityTickerDelayed;
 import org.cyclops.cyclopscore.blockentity.CyclopsBlockEntity;
 import org.cyclops.cyclopscore.fluid.SingleUseTank;
 import org.cyclops.cyclopscore.fluid.Tank;
 import org.cyclops.cyclopscore.helper.BlockEntityHelpers;
 import org.cyclops.cyclopscore.helper.BlockHelpers;
-import org.cyclops.cyclopscore.persist.nbt.NBTPersist;
+import org.cyclops.cyclopscore.helper.FluidHelpers;
 import org.cyclops.flopper.RegistryEntries;
 import org.cyclops.flopper.block.BlockFlopper;
 import org.cyclops.flopper.block.BlockFlopperConfig;
+import org.cyclops.flopper.jfr.FlopperEvents;
+import org.cyclops.flopper.jfr.FlopperTransferEvent;
+import org.cyclops.flopper.jfr.FlopperUpdateEvent;
+import org.cyclops.flopper.jfr.FlopperWorldPickupEvent;
+import org.cyclops.flopper.jfr.FlopperWorldPlacementEvent;
 
-import java.util.Optional;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
 
 /**
  * Fluid hopper tile.
@@ -37,21 +56,107 @@ import java.util.Optional;
  */
 public class BlockEntityFlopper extends CyclopsBlockEntity {
 
-    private Tank tank;
+    public static final int SYNC_FLUID_LEVELS = 64;
+    public static final int MODEL_FLUID_LEVELS = 16;
+    public static final ModelProperty<Fluid> MODEL_FLUID = new ModelProperty<>();
+    public static final ModelProperty<Integer> MODEL_FLUID_LEVEL = new ModelProperty<>();
+    public static final ModelProperty<Integer> MODEL_FLUID_COLOR = new ModelProperty<>();
+
+    private final Tank tank;
+    @Nullable
+    private LazyOptional<IFluidHandler> tankCapability = null;
 
-    @NBTPersist
     private int transferCooldown = -1;
+    @Nullable
+    private FlopperFluidFilter filter = null;
+    @Nullable
+    private Fluid rejectedFluid = null;
+    @Nullable
+    private FlopperDistributor distributor = null;
+    private byte unloadedNeighbours = 0;
+
+    private int failedAttempts = 0;
+    private int sleepTicks = 0;
+    private long lastTickTime = -1;
+    private long savedGameTime = -1;
+    private long scheduledTick = -1;
+
+    private LazyOptional<IFluidHandler> targetHandler = LazyOptional.empty();
+    @Nullable
+    private IFluidHandler targetFluidHandler = null;
+    private boolean targetHandlerValid = false;
+    private LazyOptional<IFluidHandler> sourceHandler = LazyOptional.empty();
+    @Nullable
+    private IFluidHandler sourceFluidHandler = null;
+    private boolean sourceHandlerValid = false;
+    @Nullable
+    private FluidHandlerBlock worldSourceHandler = null;
+
+    @Nullable
+    private FlopperChain chain = null;
+    private int chainIndex = -1;
+    private boolean chainResolved = false;
+
+    private boolean ticking = false;
+
+    private boolean inLoop = false;
+    private long loopCheckTime = -1;
+
+    @Nullable
+    private FlopperMetrics metrics = null;
+    private int attemptMoved = 0;
+    @Nullable
+    private FlopperTransferPlan transferPlan = null;
+
+    private boolean syncDirty = false;
+    private long nextSyncTime = 0;
+    @Nullable
+    private Fluid syncedFluid = null;
+    private int syncedFluidLevel = -1;
+
+    private int comparatorSignal = 0;
+    @Nullable
+    private CompoundTag savedFluidTag = null;
+
+    private int tankVersion = 0;
+    @Nullable
+    private Object renderCache = null;
+    @Nullable
+    private Fluid modelFluid = null;
+    private int modelFluidLevel = 0;
 
     public BlockEntityFlopper(BlockPos blockPos, BlockState blockState) {
         super(RegistryEntries.BLOCK_ENTITY_FLOPPER, blockPos, blockState);
-        tank = new SingleUseTank(BlockFlopperConfig.capacityMb) {
-            @Override
-            protected void sendUpdate() {
-                super.sendUpdate();
-                BlockEntityFlopper.this.sendUpdate();
+        tank = new FlopperTank(this);
+    }
+
+    @Override
+    public <T> LazyOptional<T> getCapability(Capability<T> capability, @Nullable Direction facing) {
+        if (capability == CapabilityFluidHandler.FLUID_HANDLER_CAPABILITY) {
+            // Only created once something actually looks for it, most floppers are never queried from the outside
+            if (this.tankCapability == null) {
+                this.tankCapability = LazyOptional.of(this::getTank);
             }
-        };
-        addCapabilityInternal(CapabilityFluidHandler.FLUID_HANDLER_CAPABILITY, LazyOptional.of(this::getTank));
+            return this.tankCapability.cast();
+        }
+        return super.getCapability(capability, facing);
+    }
+
+    @Override
+    public void invalidateCaps() {
+        super.invalidateCaps();
+        // The invalidated instance is kept, so that no valid one is created until the capabilities are revived
+        if (this.tankCapability != null) {
+            this.tankCapability.invalidate();
+        } else {
+            this.tankCapability = LazyOptional.empty();
+        }
+    }
+
+    @Override
+    public void reviveCaps() {
+        super.reviveCaps();
+        this.tankCapability = null;
     }
 
     public Tank getTank() {
@@ -66,34 +171,842 @@ public class BlockEntityFlopper extends CyclopsBlockEntity {
         return transferCooldown;
     }
 
+    /**
+     * Called when the contents of the tank have changed.
+     */
+    protected void onTankChanged() {
+        this.savedFluidTag = null;
+        this.tankVersion++;
+        if (this.rejectedFluid != null && this.rejectedFluid != tank.getFluid().getFluid()) {
+            this.rejectedFluid = null;
+        }
+        this.syncDirty = true;
+        // Changes from outside, such as buckets and pipes, must also be saved
+        setChanged();
+        updateComparatorSignal();
+        // Moves within our chain are done in one pass by its head, which wakes up the members that have to act on it
+        if (this.chain == null || !this.chain.isTransferring()) {
+            // Our own transfers are followed by the regular cooldown
+            if (!this.ticking) {
+                wakeUp();
+            }
+            // The head of our chain may have to move the new contents along
+            if (this.chain != null && this.chain.isValid() && this.chain.getHead() != this) {
+                this.chain.getHead().wakeUp();
+            }
+        }
+    }
+
+    /**
+     * @return The fluid filter of this flopper, or null if it has none.
+     */
+    @Nullable
+    public FlopperFluidFilter getFilter() {
+        return filter;
+    }
+
+    /**
+     * @param fluid A fluid.
+     * @return If this flopper accepts the given fluid in its tank.
+     */
+    public boolean acceptsFluid(Fluid fluid) {
+        return this.filter == null || this.filter.accepts(fluid);
+    }
+
+    /**
+     * Move the given fluid to its next entry in the filter of this flopper.
+     * @param fluid A fluid.
+     * @return The new entry of the fluid.
+     */
+    public FlopperFluidFilter.Entry cycleFilter(Fluid fluid) {
+        if (this.filter == null) {
+            this.filter = new FlopperFluidFilter();
+        }
+        FlopperFluidFilter.Entry entry = this.filter.cycle(fluid);
+        if (this.filter.isEmpty()) {
+            this.filter = null;
+        }
+        setChanged();
+        // Floppers pushing into us may have to retry fluids they remembered as rejected
+        level.updateNeighborsAt(getBlockPos(), getBlockState().getBlock());
+        wakeUp();
+        return entry;
+    }
+
+    /**
+     * This does not look up the chunk, but relies on the state that is tracked by {@link FlopperNeighbourChunks}.
+     * @param side A side of this flopper.
+     * @return If the neighbour at the given side is in a loaded chunk.
+     */
+    public boolean isNeighbourLoaded(Direction side) {
+        return (this.unloadedNeighbours & (1 << side.get3DDataValue())) == 0;
+    }
+
+    /**
+     * @param side A side of this flopper.
+     * @param loaded If the neighbour at the given side is in a loaded chunk.
+     */
+    protected void setNeighbourLoaded(Direction side, boolean loaded) {
+        if (loaded != isNeighbourLoaded(side)) {
+            int bit = 1 << side.get3DDataValue();
+            this.unloadedNeighbours = (byte) (loaded ? this.unloadedNeighbours & ~bit : this.unloadedNeighbours | bit);
+            if (side == getFacing()) {
+                this.targetHandlerValid = false;
+                this.targetFluidHandler = null;
+            }
+            if (this.distributor != null) {
+                this.distributor.invalidate();
+            }
+            invalidateChain();
+            if (loaded) {
+                wakeUp();
+            }
+        }
+    }
+
+    /**
+     * @return If this flopper pushes into all adjacent tanks instead of only the one it faces.
+     */
+    public boolean isDistributor() {
+        return BlockFlopperConfig.distributor && this.distributor != null;
+    }
+
+    /**
+     * @return The distributor mode of this flopper, or null if it only pushes into the tank it faces.
+     */
+    @Nullable
+    public FlopperDistributor.Mode getDistributorMode() {
+        return this.distributor != null ? this.distributor.getMode() : null;
+    }
+
+    /**
+     * Switch to the next distributor mode, from off to round-robin to proportional and back.
+     * @return The new distributor mode, or null if it was turned off.
+     */
+    @Nullable
+    public FlopperDistributor.Mode cycleDistributorMode() {
+        FlopperDistributor.Mode mode = getDistributorMode();
+        FlopperDistributor.Mode[] modes = FlopperDistributor.Mode.values();
+        if (mode == null) {
+            setDistributorMode(modes[0]);
+        } else if (mode.ordinal() + 1 < modes.length) {
+            setDistributorMode(modes[mode.ordinal() + 1]);
+        } else {
+            setDistributorMode(null);
+        }
+        setChanged();
+        // Distributors can not be part of chains
+        invalidateChain();
+        level.updateNeighborsAt(getBlockPos(), getBlockState().getBlock());
+        wakeUp();
+        return getDistributorMode();
+    }
+
+    protected void setDistributorMode(@Nullable FlopperDistributor.Mode mode) {
+        this.distributor = mode != null ? new FlopperDistributor(this, mode) : null;
+    }
+
+    /**
+     * @param fluidHandler A fluid handler.
+     * @return If the handler contains a fluid this flopper accepts.
+     */
+    protected boolean containsAcceptedFluid(IFluidHandler fluidHandler) {
+        if (this.filter == null) {
+            return true;
+        }
+        for (int i = 0; i < fluidHandler.getTanks(); i++) {
+            FluidStack fluidStack = fluidHandler.getFluidInTank(i);
+            if (!fluidStack.isEmpty() && this.filter.accepts(fluidStack.getFluid())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @param fluidHandler A fluid handler.
+     * @param fluidStack A fluid.
+     * @return If any tank of the handler could ever contain the given fluid, handlers without tanks are assumed to.
+     */
+    protected static boolean isFluidValid(IFluidHandler fluidHandler, FluidStack fluidStack) {
+        if (fluidHandler.getTanks() == 0) {
+            return true;
+        }
+        for (int i = 0; i < fluidHandler.getTanks(); i++) {
+            if (fluidHandler.isFluidValid(i, fluidStack)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @param fluidHandler A fluid handler.
+     * @param fluid A fluid.
+     * @return If all tanks of the handler contain another fluid, so that the given fluid can't be filled until they are emptied.
+     */
+    protected static boolean containsOnlyOtherFluids(IFluidHandler fluidHandler, Fluid fluid) {
+        if (fluidHandler.getTanks() == 0) {
+            return false;
+        }
+        for (int i = 0; i < fluidHandler.getTanks(); i++) {
+            FluidStack fluidStack = fluidHandler.getFluidInTank(i);
+            if (fluidStack.isEmpty() || fluidStack.getFluid().isSame(fluid)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return The redstone signal for comparators, between 0 and 8.
+     */
+    public int getComparatorSignal() {
+        return comparatorSignal;
+    }
+
+    protected int calculateComparatorSignal() {
+        return tank.getFluidAmount() * 8 / tank.getCapacity();
+    }
+
+    /**
+     * Recalculate the comparator signal, and notify comparators if it has changed.
+     */
+    protected void updateComparatorSignal() {
+        int signal = calculateComparatorSignal();
+        if (signal != this.comparatorSignal) {
+            this.comparatorSignal = signal;
+            if (level != null && !level.isClientSide) {
+                level.updateNeighbourForOutputSignal(getBlockPos(), getBlockState().getBlock());
+            }
+        }
+    }
+
+    /**
+     * Only marks the chunk as unsaved, comparators are notified separately when the comparator signal changes.
+     */
+    @Override
+    public void setChanged() {
+        if (level != null) {
+            level.blockEntityChanged(getBlockPos());
+        }
+    }
+
+    /**
+     * @return The chain this flopper is part of, or null.
+     */
+    @Nullable
+    public FlopperChain getChain() {
+        if (this.chain != null && !this.chain.isValid()) {
+            this.chain = null;
+            this.chainResolved = false;
+        }
+        if (!this.chainResolved) {
+            FlopperChain.resolve(this);
+        }
+        return this.chain;
+    }
+
+    /**
+     * @return The index of this flopper within its chain.
+     */
+    public int getChainIndex() {
+        return chainIndex;
+    }
+
+    protected void setChain(@Nullable FlopperChain chain, int chainIndex) {
+        this.chain = chain;
+        this.chainIndex = chainIndex;
+        this.chainResolved = true;
+    }
+
+    protected void invalidateChain() {
+        if (this.chain != null) {
+            this.chain.invalidate();
+            this.chain = null;
+        }
+        this.chainResolved = false;
+        this.loopCheckTime = -1;
+    }
+
+    /**
+     * As loops can be changed far away from this flopper, this is rechecked periodically.
+     * @return If this flopper is part of a loop in which fluids circulate forever.
+     */
+    public boolean isInLoop() {
+        long gameTime = level.getGameTime();
+        if (this.loopCheckTime < 0 || gameTime - this.loopCheckTime >= BlockFlopperConfig.loopCheckInterval) {
+            this.loopCheckTime = gameTime;
+            this.inLoop = FlopperLoops.isInLoop(this);
+            FlopperLoops.setLooping(this, this.inLoop);
+        }
+        return this.inLoop;
+    }
+
+    /**
+     * @return The performance metrics of this flopper, or null if metrics are disabled.
+     */
+    @Nullable
+    public FlopperMetrics getMetrics() {
+        if (!FlopperMetrics.isEnabled()) {
+            return null;
+        }
+        if (this.metrics == null) {
+            this.metrics = FlopperMetrics.create(getLevel().dimension(), getBlockPos());
+        }
+        return this.metrics;
+    }
+
+    /**
+     * Register moved fluid for the current transfer attempt, and in the metrics if enabled.
+     * @param amount The moved amount in mB.
+     */
+    protected void recordMoved(int amount) {
+        this.attemptMoved += amount;
+        FlopperMetrics metrics = getMetrics();
+        if (metrics != null) {
+            metrics.recordMoved(amount);
+        }
+    }
+
+    /**
+     * @param transferPlan A transfer plan to use in the next transfer attempt, or null.
+     */
+    protected void setTransferPlan(@Nullable FlopperTransferPlan transferPlan) {
+        this.transferPlan = transferPlan;
+    }
+
+    /**
+     * @return The transfer plan for this attempt if one was made, which is only returned once.
+     */
+    @Nullable
+    protected FlopperTransferPlan takeTransferPlan() {
+        FlopperTransferPlan plan = this.transferPlan;
+        this.transferPlan = null;
+        return plan;
+    }
+
+    /**
+     * @return If this flopper is sleeping, which means that it will not attempt any transfers.
+     */
+    public boolean isSleeping() {
+        return sleepTicks > 0;
+    }
+
+    /**
+     * Wake up this flopper if it was sleeping.
+     * This is called on neighbour changes, capability invalidations of neighbours and tank changes,
+     * the latter also covering players interacting with the flopper.
+     */
+    public void wakeUp() {
+        if (this.failedAttempts > 0) {
+            // Stop backing off
+            this.transferCooldown = Math.min(this.transferCooldown, 0);
+        }
+        this.failedAttempts = 0;
+        this.sleepTicks = 0;
+        if (level != null && !level.isClientSide && FlopperTickManager.isEnabled()) {
+            FlopperTickManager.get(level).schedule(this, 1);
+        }
+    }
+
+    /**
+     * Called when a transfer attempt has been made.
+     * After each consecutive failed attempt, the time until the next attempt is doubled,
+     * and after too many of them, this flopper will go to sleep.
+     * @param worked If the attempt moved any fluid.
+     */
+    protected void onTransferAttempt(boolean worked) {
+        if (worked) {
+            this.failedAttempts = 0;
+        } else {
+            this.failedAttempts++;
+            if (BlockFlopperConfig.sleepAfterFailedAttempts > 0
+                    && this.failedAttempts >= BlockFlopperConfig.sleepAfterFailedAttempts) {
+                this.sleep();
+            } else {
+                setTransferCooldown(getBackoffTicks());
+            }
+        }
+    }
+
+    /**
+     * @return The number of ticks to wait after the current number of consecutive failed attempts.
+     */
+    protected int getBackoffTicks() {
+        if (this.failedAttempts <= 0 || BlockFlopperConfig.backoffMaxTicks <= 0) {
+            return 0;
+        }
+        return Math.min(BlockFlopperConfig.backoffMaxTicks, 1 << Math.min(this.failedAttempts - 1, 30));
+    }
+
+    /**
+     * Put this flopper to sleep until it is woken up, or until the wakeup timeout expires.
+     */
+    protected void sleep() {
+        this.failedAttempts = 0;
+        this.sleepTicks = Math.max(1, BlockFlopperConfig.sleepWakeupTicks);
+
+        // Make sure we wake up when the capabilities of our neighbours change.
+        getTargetHandler();
+        getSourceHandler();
+    }
+
+    /**
+     * Progress the sleeping time of this flopper.
+     * @param ticks The number of elapsed ticks.
+     */
+    protected void tickSleeping(int ticks) {
+        this.sleepTicks = Math.max(0, this.sleepTicks - ticks);
+        if (this.sleepTicks == 0) {
+            // Targets that are emptied of another fluid don't notify us, so rejected fluids are retried after sleeping
+            this.rejectedFluid = null;
+        }
+    }
+
+    /**
+     * Register that this flopper is being ticked.
+     * @param gameTime The current game time.
+     * @return The number of ticks since the previous tick of this flopper.
+     */
+    protected int onTick(long gameTime) {
+        int elapsed = this.lastTickTime < 0 ? 1 : (int) Math.max(1, Math.min(gameTime - this.lastTickTime, Integer.MAX_VALUE));
+        this.lastTickTime = gameTime;
+        return elapsed;
+    }
+
+    /**
+     * @return The number of ticks after which this flopper has to be ticked again.
+     */
+    protected int getNextTickDelay() {
+        int delay = isSleeping() ? this.sleepTicks : Math.max(1, this.transferCooldown);
+        if (this.syncDirty) {
+            delay = (int) Math.min(delay, Math.max(1, this.nextSyncTime - level.getGameTime()));
+        }
+        return delay;
+    }
+
+    /**
+     * Sync the tank contents to the clients tracking this flopper, if they have changed
+     * and the previous sync was long enough ago.
+     * @param gameTime The current game time.
+     */
+    protected void trySync(long gameTime) {
+        if (!this.syncDirty || gameTime < this.nextSyncTime) {
+            return;
+        }
+        this.syncDirty = false;
+        this.nextSyncTime = gameTime + Math.max(1, BlockFlopperConfig.syncInterval);
+
+        if (((ServerLevel) level).getChunkSource().chunkMap.getPlayers(new ChunkPos(getBlockPos()), false).isEmpty()) {
+            // Players that start tracking the chunk will receive the full state, so we will have to resend afterwards.
+            this.syncedFluid = null;
+            this.syncedFluidLevel = -1;
+            return;
+        }
+        Fluid fluid = tank.getFluid().getFluid();
+        int fluidLevel = getSyncFluidLevel();
+        if (fluid != this.syncedFluid || fluidLevel != this.syncedFluidLevel) {
+            this.syncedFluid = fluid;
+            this.syncedFluidLevel = fluidLevel;
+            level.sendBlockUpdated(getBlockPos(), getBlockState(), getBlockState(), Block.UPDATE_CLIENTS);
+        }
+    }
+
+    /**
+     * @return The fill level of the tank that decides when to sync to clients, between 0 and {@link #SYNC_FLUID_LEVELS}.
+     */
+    protected int getSyncFluidLevel() {
+        if (tank.isEmpty()) {
+            return 0;
+        }
+        return Math.max(1, (int) Math.ceil((double) tank.getFluidAmount() * SYNC_FLUID_LEVELS / tank.getCapacity()));
+    }
+
+    @Override
+    public ClientboundBlockEntityDataPacket getUpdatePacket() {
+        return ClientboundBlockEntityDataPacket.create(this);
+    }
+
+    /**
+     * @return A tag with only the fluid and its exact amount.
+     */
+    @Override
+    public CompoundTag getUpdateTag() {
+        CompoundTag tag = new CompoundTag();
+        if (!tank.isEmpty()) {
+            tag.putString("fluid", ForgeRegistries.FLUIDS.getKey(tank.getFluid().getFluid()).toString());
+            tag.putInt("amount", tank.getFluidAmount());
+        }
+        return tag;
+    }
+
+    @Override
+    public void onDataPacket(Connection net, ClientboundBlockEntityDataPacket packet) {
+        CompoundTag tag = packet.getTag();
+        if (tag != null) {
+            handleUpdateTag(tag);
+        }
+    }
+
+    @Override
+    public void handleUpdateTag(CompoundTag tag) {
+        Fluid fluid = tag.contains("fluid") ? ForgeRegistries.FLUIDS.getValue(new ResourceLocation(tag.getString("fluid"))) : null;
+        int amount = tag.getInt("amount");
+        tank.setFluid(fluid == null || amount <= 0 ? FluidStack.EMPTY : new FluidStack(fluid, amount));
+        this.tankVersion++;
+        if (level != null && level.isClientSide && BlockFlopperConfig.renderFluidStatic) {
+            updateModelFluid();
+        }
+    }
+
+    protected long getScheduledTick() {
+        return scheduledTick;
+    }
+
+    protected void setScheduledTick(long scheduledTick) {
+        this.scheduledTick = scheduledTick;
+    }
+
+    /**
+     * Do the transfers between tanks this flopper would have done while its chunk was unloaded, in a single step.
+     * Each transfer cycle of the flopper could have pushed and pulled at their rates,
+     * the neighbouring tanks themselves limit the transferred amounts to their contents and capacity.
+     * Fluid that would have passed through the flopper is moved from the source to the target directly,
+     * so that the amount is not limited by the capacity of our own tank.
+     * @param gameTime The current game time.
+     */
+    protected void catchUp(long gameTime) {
+        long unloadedTicks = Math.min(gameTime - this.savedGameTime, BlockFlopperConfig.catchUpMaxTicks);
+        this.savedGameTime = -1;
+        if (unloadedTicks <= 0 || isSleeping() || !BlockHelpers.getSafeBlockStateProperty(getBlockState(), BlockFlopper.ENABLED, false)) {
+            return;
+        }
+        long cycles = unloadedTicks / Math.max(1, BlockFlopperConfig.workCooldown);
+        int maxPush = (int) Math.min(Integer.MAX_VALUE, cycles * BlockFlopperConfig.pushFluidRate);
+        int maxPull = (int) Math.min(Integer.MAX_VALUE, cycles * BlockFlopperConfig.pullFluidRate);
+        // The source is always in our own chunk
+        IFluidHandler source = getSourceHandler();
+
+        int pushed = 0;
+        int pulled = 0;
+        if (isDistributor()) {
+            // Distributors split their contents over their targets, so fluid can't flow through directly
+            if (maxPush > 0) {
+                pushed = this.distributor.push(maxPush);
+            }
+        } else {
+            // The target is only available if its chunk is loaded
+            IFluidHandler target = getTargetHandler();
+            if (target != null && maxPush > 0) {
+                // Push what we have
+                pushed = FlopperTransfers.transfer(target, tank, maxPush);
+
+                // Move what would have passed through us from the source to the target
+                int flowMax = Math.min(maxPush - pushed, maxPull);
+                if (source != null && flowMax > 0 && canFlowThrough(source, flowMax)) {
+                    int flowed = FlopperTransfers.transfer(target, source, flowMax);
+                    pushed += flowed;
+                    pulled += flowed;
+                }
+            }
+        }
+        // Fill up our own tank with what we would have pulled last
+        if (source != null && maxPull > pulled) {
+            pulled += FlopperTransfers.transfer(tank, source, maxPull - pulled);
+        }
+        recordMoved(pushed + pulled);
+    }
+
+    /**
+     * @param source The source handler.
+     * @param amount The amount to move.
+     * @return If the fluid the source would give can pass through our tank, in which it would not be mixed.
+     */
+    protected boolean canFlowThrough(IFluidHandler source, int amount) {
+        FluidStack offered = source.drain(amount, IFluidHandler.FluidAction.SIMULATE);
+        return !offered.isEmpty() && tank.isFluidValid(offered)
+                && (tank.isEmpty() || tank.getFluid().isFluidEqual(offered));
+    }
+
+    @Override
+    public void onLoad() {
+        super.onLoad();
+        if (!level.isClientSide) {
+            FlopperNeighbourChunks.add(this);
+        }
+        if (!level.isClientSide && FlopperTickManager.isEnabled()) {
+            this.scheduledTick = -1;
+            FlopperTickManager.get(level).schedule(this, 1);
+        }
+    }
+
+    /**
+     * @return A counter that changes each time the contents of the tank change.
+     */
+    public int getTankVersion() {
+        return tankVersion;
+    }
+
+    /**
+     * @return The client-side render data of the tank contents, only valid for the current tank version.
+     */
+    @Nullable
+    public Object getRenderCache() {
+        return renderCache;
+    }
+
+    public void setRenderCache(@Nullable Object renderCache) {
+        this.renderCache = renderCache;
+    }
+
     @Override
     public void read(CompoundTag tag) {
         super.read(tag);
-        tank.readFromNBT(tag.getCompound("tank"));
+        this.transferCooldown = tag.contains("transferCooldown") ? tag.getInt("transferCooldown") : -1;
+        if (tag.contains("tank", Tag.TAG_COMPOUND)) {
+            // Legacy format
+            tank.readFromNBT(tag.getCompound("tank"));
+        } else {
+            tank.setFluid(readFluid(tag.getCompound("fluid")));
+        }
+        this.savedFluidTag = null;
+        // Only for block entities that are loaded with their chunk, not when placed from an item
+        this.savedGameTime = tag.contains("saveTime") && tag.contains("x") ? tag.getLong("saveTime") : -1;
+        this.comparatorSignal = calculateComparatorSignal();
+        if (tag.contains("filter", Tag.TAG_COMPOUND)) {
+            this.filter = new FlopperFluidFilter();
+            this.filter.read(tag.getCompound("filter"));
+            if (this.filter.isEmpty()) {
+                this.filter = null;
+            }
+        } else {
+            this.filter = null;
+        }
+        FlopperDistributor.Mode distributorMode = null;
+        if (tag.contains("distributor", Tag.TAG_STRING)) {
+            try {
+                distributorMode = FlopperDistributor.Mode.valueOf(tag.getString("distributor"));
+            } catch (IllegalArgumentException e) {
+                // Unknown modes are turned off
+            }
+        }
+        setDistributorMode(distributorMode);
+    }
+
+    /**
+     * @return The fill level of the tank in the static model, between 0 and {@link #MODEL_FLUID_LEVELS}.
+     */
+    protected int getModelFluidLevel() {
+        if (tank.isEmpty()) {
+            return 0;
+        }
+        return Math.max(1, (int) Math.ceil((double) tank.getFluidAmount() * MODEL_FLUID_LEVELS / tank.getCapacity()));
+    }
+
+    /**
+     * Re-render the chunk section this flopper is in if the fluid or its level in the static model have changed.
+     */
+    protected void updateModelFluid() {
+        Fluid fluid = tank.isEmpty() ? null : tank.getFluid().getFluid();
+        int fluidLevel = getModelFluidLevel();
+        if (fluid != this.modelFluid || fluidLevel != this.modelFluidLevel) {
+            this.modelFluid = fluid;
+            this.modelFluidLevel = fluidLevel;
+            requestModelDataUpdate();
+            level.sendBlockUpdated(getBlockPos(), getBlockState(), getBlockState(), Block.UPDATE_IMMEDIATE);
+        }
+    }
+
+    @Nonnull
+    @Override
+    public IModelData getModelData() {
+        if (!BlockFlopperConfig.renderFluidStatic || tank.isEmpty()) {
+            return EmptyModelData.INSTANCE;
+        }
+        Fluid fluid = tank.getFluid().getFluid();
+        return new ModelDataMap.Builder()
+                .withInitial(MODEL_FLUID, fluid)
+                .withInitial(MODEL_FLUID_LEVEL, getModelFluidLevel())
+                .withInitial(MODEL_FLUID_COLOR, fluid.getAttributes().getColor(level, getBlockPos()))
+                .build();
     }
 
     @Override
     public void saveAdditional(CompoundTag tag) {
         super.saveAdditional(tag);
-        CompoundTag tagTank = new CompoundTag();
-        tank.writeToNBT(tagTank);
-        tag.put("tank", tagTank);
+        tag.putInt("transferCooldown", this.transferCooldown);
+        if (this.filter != null) {
+            tag.put("filter", this.filter.write());
+        }
+        if (this.distributor != null) {
+            tag.putString("distributor", this.distributor.getMode().name());
+        }
+        if (!tank.isEmpty()) {
+            // The tag is only recreated if the tank has changed since the previous save, and is never modified afterwards
+            if (this.savedFluidTag == null) {
+                this.savedFluidTag = writeFluid(tank.getFluid());
+            }
+            tag.put("fluid", this.savedFluidTag);
+        }
+        if (BlockFlopperConfig.catchUp && level != null) {
+            tag.putLong("saveTime", level.getGameTime());
+        }
+    }
+
+    protected static CompoundTag writeFluid(FluidStack fluidStack) {
+        CompoundTag tag = new CompoundTag();
+        tag.putString("id", ForgeRegistries.FLUIDS.getKey(fluidStack.getFluid()).toString());
+        tag.putInt("amount", fluidStack.getAmount());
+        if (fluidStack.hasTag()) {
+            tag.put("tag", fluidStack.getTag().copy());
+        }
+        return tag;
+    }
+
+    protected static FluidStack readFluid(CompoundTag tag) {
+        Fluid fluid = tag.contains("id") ? ForgeRegistries.FLUIDS.getValue(new ResourceLocation(tag.getString("id"))) : null;
+        int amount = tag.getInt("amount");
+        if (fluid == null || fluid == Fluids.EMPTY || amount <= 0) {
+            return FluidStack.EMPTY;
+        }
+        return new FluidStack(fluid, amount, tag.contains("tag", Tag.TAG_COMPOUND) ? tag.getCompound("tag") : null);
+    }
+
+    @Override
+    public void setBlockState(BlockState blockState) {
+        if (blockState.getValue(BlockFlopper.FACING) != getBlockState().getValue(BlockFlopper.FACING)) {
+            this.targetHandlerValid = false;
+            invalidateChain();
+        }
+        super.setBlockState(blockState);
+    }
+
+    @Override
+    public void setRemoved() {
+        super.setRemoved();
+        invalidateChain();
+        FlopperLoops.setLooping(this, false);
+        if (level != null && !level.isClientSide) {
+            FlopperNeighbourChunks.remove(this);
+        }
+        if (this.metrics != null) {
+            FlopperMetrics.remove(this.metrics);
+            this.metrics = null;
+        }
     }
 
     protected Direction getFacing() {
-        return getLevel().getBlockState(getBlockPos()).getValue(BlockFlopper.FACING);
+        return getBlockState().getValue(BlockFlopper.FACING);
+    }
+
+    /**
+     * Called when a neighbouring block has changed.
+     * @param fromPos The position of the changed neighbour.
+     */
+    public void onNeighborChanged(BlockPos fromPos) {
+        if (fromPos.equals(getBlockPos().relative(getFacing()))) {
+            this.targetHandlerValid = false;
+            this.rejectedFluid = null;
+        } else if (fromPos.equals(getBlockPos().relative(Direction.UP))) {
+            this.sourceHandlerValid = false;
+        }
+        if (this.distributor != null) {
+            this.distributor.invalidate();
+        }
+        invalidateChain();
+        wakeUp();
+    }
+
+    /**
+     * @return The cached fluid handler this flopper pushes to, or null.
+     */
+    @Nullable
+    protected IFluidHandler getTargetHandler() {
+        if (!isNeighbourLoaded(getFacing())) {
+            return null;
+        }
+        if (!this.targetHandlerValid) {
+            LazyOptional<IFluidHandler> handler = BlockEntityHelpers.getCapability(level, getBlockPos().relative(getFacing()),
+                    getFacing().getOpposite(), CapabilityFluidHandler.FLUID_HANDLER_CAPABILITY);
+            if (handler != this.targetHandler) {
+                this.targetHandler = handler;
+                if (handler.isPresent()) {
+                    handler.addListener(this::onTargetHandlerInvalidated);
+                }
+            }
+            this.targetFluidHandler = handler.orElse(null);
+            this.targetHandlerValid = true;
+        }
+        return this.targetFluidHandler;
+    }
+
+    /**
+     * @return The cached fluid handler this flopper pulls from, or null.
+     */
+    @Nullable
+    protected IFluidHandler getSourceHandler() {
+        if (!this.sourceHandlerValid) {
+            LazyOptional<IFluidHandler> handler = BlockEntityHelpers.getCapability(level, getBlockPos().relative(Direction.UP),
+                    Direction.DOWN, CapabilityFluidHandler.FLUID_HANDLER_CAPABILITY);
+            if (handler != this.sourceHandler) {
+                this.sourceHandler = handler;
+                if (handler.isPresent()) {
+                    handler.addListener(this::onSourceHandlerInvalidated);
+                }
+            }
+            this.sourceFluidHandler = handler.orElse(null);
+            this.sourceHandlerValid = true;
+        }
+        return this.sourceFluidHandler;
+    }
+
+    private void onTargetHandlerInvalidated(LazyOptional<IFluidHandler> handler) {
+        if (handler == this.targetHandler) {
+            this.targetHandlerValid = false;
+            this.targetFluidHandler = null;
+            this.rejectedFluid = null;
+            wakeUp();
+        }
+    }
+
+    private void onSourceHandlerInvalidated(LazyOptional<IFluidHandler> handler) {
+        if (handler == this.sourceHandler) {
+            this.sourceHandlerValid = false;
+            this.sourceFluidHandler = null;
+            wakeUp();
+        }
     }
 
     /**
-     * Push fluids from the inner tank to a target tank.
+     * Push fluids from the inner tank to a target tank, or to all adjacent tanks in distributor mode.
      * @return If some fluid was moved.
      */
     protected boolean pushFluidsToTank() {
-        Direction targetSide = getFacing().getOpposite();
-        BlockPos targetPos = getBlockPos().relative(getFacing());
-        return BlockEntityHelpers.getCapability(level, targetPos, targetSide, CapabilityFluidHandler.FLUID_HANDLER_CAPABILITY)
-                .map(fluidHandler -> !FluidUtil.tryFluidTransfer(fluidHandler, tank, BlockFlopperConfig.pushFluidRate, true).isEmpty())
-                .orElse(false);
+        FlopperTransferEvent event = FlopperEvents.beginTransfer();
+        Fluid fluid = tank.getFluid().getFluid();
+        int moved = 0;
+        if (isDistributor()) {
+            moved = this.distributor.push(BlockFlopperConfig.pushFluidRate);
+            if (moved > 0) {
+                recordMoved(moved);
+            }
+        } else {
+            // Don't retry a fluid the target rejected, until either of them changes
+            IFluidHandler fluidHandler = fluid != this.rejectedFluid ? getTargetHandler() : null;
+            if (fluidHandler != null) {
+                moved = FlopperTransfers.transfer(fluidHandler, tank, BlockFlopperConfig.pushFluidRate);
+                if (moved > 0) {
+                    recordMoved(moved);
+                } else if (!isFluidValid(fluidHandler, tank.getFluid()) || containsOnlyOtherFluids(fluidHandler, fluid)) {
+                    this.rejectedFluid = fluid;
+                }
+            }
+        }
+        if (event != null) {
+            event.commit(level, getBlockPos(), getFacing(), fluid, moved);
+        }
+        return moved > 0;
     }
 
     /**
@@ -101,10 +1014,19 @@ public class BlockEntityFlopper extends CyclopsBlockEntity {
      * @return If some fluid was moved.
      */
     protected boolean pullFluidsFromTank() {
-        BlockPos targetPos = getBlockPos().relative(Direction.UP);
-        return BlockEntityHelpers.getCapability(level, targetPos, Direction.DOWN, CapabilityFluidHandler.FLUID_HANDLER_CAPABILITY)
-                .map(fluidHandler -> !FluidUtil.tryFluidTransfer(tank, fluidHandler, BlockFlopperConfig.pullFluidRate, true).isEmpty())
-                .orElse(false);
+        FlopperTransferEvent event = FlopperEvents.beginTransfer();
+        int moved = 0;
+        IFluidHandler fluidHandler = getSourceHandler();
+        if (fluidHandler != null && containsAcceptedFluid(fluidHandler)) {
+            moved = FlopperTransfers.transfer(tank, fluidHandler, BlockFlopperConfig.pullFluidRate);
+            if (moved > 0) {
+                recordMoved(moved);
+            }
+        }
+        if (event != null) {
+            event.commit(level, getBlockPos(), Direction.UP, tank.getFluid().getFluid(), moved);
+        }
+        return moved > 0;
     }
 
     /**
@@ -112,44 +1034,79 @@ public class BlockEntityFlopper extends CyclopsBlockEntity {
      * @return If some fluid was moved.
      */
     protected boolean pushFluidsToWorld() {
+        FlopperWorldPlacementEvent event = FlopperEvents.beginWorldPlacement();
+        int amountBefore = tank.getFluidAmount();
+        boolean worked = false;
         BlockPos targetPos = getBlockPos().relative(getFacing());
-        BlockState destBlockState = level.getBlockState(targetPos);
-        final Material destMaterial = destBlockState.getMaterial();
-        final boolean isDestNonSolid = !destMaterial.isSolid();
-        final boolean isDestReplaceable = destBlockState.getMaterial().isReplaceable();
-        if (level.isEmptyBlock(targetPos)
-                || (isDestNonSolid && isDestReplaceable && !destMaterial.isLiquid())) {
-            FluidStack fluidStack = tank.getFluid();
-
-            if (!level.dimensionType().ultraWarm() || !fluidStack.getFluid().getAttributes().doesVaporize(level, worldPosition, fluidStack)) {
-                return getFluidBlockHandler(fluidStack.getFluid(), level, targetPos)
-                        .map(fluidHandler -> {
-                            FluidStack moved = FluidUtil.tryFluidTransfer(fluidHandler, tank, Integer.MAX_VALUE, true);
-                            if (!moved.isEmpty()) {
-                                if (BlockFlopperConfig.worldPullPushSounds) {
-                                    SoundEvent soundevent = moved.getFluid().getAttributes().getFillSound(moved);
-                                    level.playSound(null, worldPosition, soundevent, SoundSource.BLOCKS, 1.0F, 1.0F);
-                                }
-                                if (BlockFlopperConfig.worldPullPushNeighbourEvents) {
-                                    level.neighborChanged(worldPosition, Blocks.AIR, worldPosition);
-                                }
-                                return true;
-                            }
-                            return false;
-                        })
-                        .orElse(false);
-
+        Fluid fluid = tank.getFluid().getFluid();
+        // The attributes may be determined at the target position, which must not load its chunk
+        FlopperFluidAttributes attributes = isNeighbourLoaded(getFacing()) ? FlopperFluidAttributes.get(level, targetPos, fluid) : null;
+        // Fluids that can never be placed in this dimension, such as water in the nether, are skipped right away
+        if (attributes != null && attributes.isPlaceable() && FlopperWorldBatch.canPlaceAt(level, targetPos)) {
+            if (BlockFlopperConfig.bulkWorldPlacement) {
+                worked = pushFluidsToWorldBulk(targetPos, fluid, attributes.getPlacementState());
+            } else if (FlopperTransfers.place(tank, attributes.getPlacementState(), level, targetPos)) {
+                recordMoved(FluidHelpers.BUCKET_VOLUME);
+                FlopperMetrics metrics = getMetrics();
+                if (metrics != null) {
+                    metrics.recordWorldPlacement(1);
+                }
+                if (BlockFlopperConfig.worldPullPushSounds) {
+                    FluidStack moved = new FluidStack(fluid, FluidHelpers.BUCKET_VOLUME);
+                    SoundEvent soundevent = fluid.getAttributes().getFillSound(moved);
+                    level.playSound(null, worldPosition, soundevent, SoundSource.BLOCKS, 1.0F, 1.0F);
+                }
+                if (BlockFlopperConfig.worldPullPushNeighbourEvents) {
+                    level.neighborChanged(worldPosition, Blocks.AIR, worldPosition);
+                }
+                worked = true;
             }
         }
-        return false;
+        if (event != null) {
+            event.commit(level, getBlockPos(), getFacing(), fluid, amountBefore - tank.getFluidAmount());
+        }
+        return worked;
     }
 
-    private Optional<IFluidHandler> getFluidBlockHandler(Fluid fluid, Level world, BlockPos targetPos) {
-        if (!fluid.getAttributes().canBePlacedInWorld(world, targetPos, fluid.defaultFluidState())) {
-            return Optional.empty();
+    /**
+     * Place multiple blocks of fluid from the inner tank in the area in front of the flopper.
+     * @param targetPos The target space.
+     * @param fluid The fluid in the inner tank.
+     * @param fluidBlockState The block state of the fluid to place.
+     * @return If some fluid was moved.
+     */
+    protected boolean pushFluidsToWorldBulk(BlockPos targetPos, Fluid fluid, BlockState fluidBlockState) {
+        int maxBlocks = Math.min(BlockFlopperConfig.bulkWorldPlacementBlocks, tank.getFluidAmount() / FluidHelpers.BUCKET_VOLUME);
+        if (maxBlocks <= 0) {
+            return false;
+        }
+
+        FlopperWorldBatch batch = new FlopperWorldBatch(level);
+        for (BlockPos pos : FlopperWorldBatch.collectPlacements(level, targetPos, BlockFlopperConfig.bulkWorldRadius, maxBlocks)) {
+            if (!level.isEmptyBlock(pos)) {
+                FluidUtil.destroyBlockOnFluidPlacement(level, pos);
+            }
+            batch.setBlock(pos, fluidBlockState);
+        }
+        if (batch.size() == 0) {
+            return false;
+        }
+        batch.finish();
+
+        int moved = tank.drain(batch.size() * FluidHelpers.BUCKET_VOLUME, IFluidHandler.FluidAction.EXECUTE).getAmount();
+        recordMoved(moved);
+        FlopperMetrics metrics = getMetrics();
+        if (metrics != null) {
+            metrics.recordWorldPlacement(batch.size());
         }
-        BlockState state = fluid.getAttributes().getBlock(world, targetPos, fluid.defaultFluidState());
-        return Optional.of(new BlockWrapper(state, world, targetPos));
+        if (BlockFlopperConfig.worldPullPushSounds) {
+            SoundEvent soundevent = fluid.getAttributes().getFillSound(new FluidStack(fluid, moved));
+            level.playSound(null, worldPosition, soundevent, SoundSource.BLOCKS, 1.0F, 1.0F);
+        }
+        if (BlockFlopperConfig.worldPullPushNeighbourEvents) {
+            level.neighborChanged(worldPosition, Blocks.AIR, worldPosition);
+        }
+        return true;
     }
 
     /**
@@ -157,31 +1114,145 @@ public class BlockEntityFlopper extends CyclopsBlockEntity {
      * @return If some fluid was moved.
      */
     protected boolean pullFluidsFromWorld() {
+        FlopperWorldPickupEvent event = FlopperEvents.beginWorldPickup();
+        int amountBefore = tank.getFluidAmount();
+        boolean worked = false;
+        FluidState fluidState = level.getFluidState(getBlockPos().relative(Direction.UP));
+        if (!fluidState.isEmpty() && acceptsFluid(fluidState.getType())) {
+            worked = BlockFlopperConfig.bulkWorldPickup ? pullFluidsFromWorldBulk() : pullFluidsFromWorldSingle();
+        }
+        if (event != null) {
+            event.commit(level, getBlockPos(), Direction.UP, tank.getFluid().getFluid(), tank.getFluidAmount() - amountBefore);
+        }
+        return worked;
+    }
+
+    /**
+     * Pull a single fluid block from the world at the target space to the inner tank.
+     * @return If some fluid was moved.
+     */
+    protected boolean pullFluidsFromWorldSingle() {
         BlockPos targetPos = getBlockPos().relative(Direction.UP);
         BlockState destBlockState = level.getBlockState(targetPos);
-        return wrapFluidBlock(destBlockState, level, targetPos)
-                .map(fluidHandler -> {
-                    FluidStack moved = FluidUtil.tryFluidTransfer(tank, fluidHandler, Integer.MAX_VALUE, true);
-                    if (!moved.isEmpty()) {
-                        if (BlockFlopperConfig.worldPullPushSounds) {
-                            SoundEvent soundevent = moved.getFluid().getAttributes().getEmptySound(moved);
-                            level.playSound(null, worldPosition, soundevent, SoundSource.BLOCKS, 1.0F, 1.0F);
-                        }
-                        if (BlockFlopperConfig.worldPullPushNeighbourEvents) {
-                            level.neighborChanged(worldPosition, Blocks.AIR, worldPosition);
-                        }
-                        return true;
-                    }
-                    return false;
-                })
-                .orElse(false);
+        if (destBlockState.getFluidState().isEmpty()) {
+            return false;
+        }
+        IFluidHandler fluidHandler = wrapFluidBlock(destBlockState, level, targetPos);
+        if (fluidHandler != null) {
+            int moved = FlopperTransfers.transfer(tank, fluidHandler, Integer.MAX_VALUE);
+            if (moved > 0) {
+                recordMoved(moved);
+                FlopperMetrics metrics = getMetrics();
+                if (metrics != null) {
+                    metrics.recordWorldPickup(1);
+                }
+                if (BlockFlopperConfig.worldPullPushSounds) {
+                    FluidStack movedFluid = new FluidStack(tank.getFluid(), moved);
+                    SoundEvent soundevent = movedFluid.getFluid().getAttributes().getEmptySound(movedFluid);
+                    level.playSound(null, worldPosition, soundevent, SoundSource.BLOCKS, 1.0F, 1.0F);
+                }
+                if (BlockFlopperConfig.worldPullPushNeighbourEvents) {
+                    level.neighborChanged(worldPosition, Blocks.AIR, worldPosition);
+                }
+                return true;
+            }
+        }
+        return false;
     }
 
-    private LazyOptional<IFluidHandler> wrapFluidBlock(BlockState blockState, Level world, BlockPos targetPos) {
+    /**
+     * Pull all connected source blocks at the target space into the inner tank, as far as it has space.
+     * @return If some fluid was moved.
+     */
+    protected boolean pullFluidsFromWorldBulk() {
+        BlockPos targetPos = getBlockPos().relative(Direction.UP);
+        FluidState fluidState = level.getFluidState(targetPos);
+        if (!fluidState.isSource()) {
+            return false;
+        }
+        Fluid fluid = fluidState.getType();
+        if (FlopperWorldBatch.getDrainedState(level.getBlockState(targetPos), fluid) == null) {
+            // Blocks that are not supported by batches are picked up by themselves
+            return pullFluidsFromWorldSingle();
+        }
+        int maxBlocks = tank.fill(new FluidStack(fluid, tank.getCapacity()), IFluidHandler.FluidAction.SIMULATE) / FluidHelpers.BUCKET_VOLUME;
+        if (maxBlocks <= 0) {
+            return false;
+        }
+
+        FlopperWorldBatch batch = new FlopperWorldBatch(level);
+        for (BlockPos pos : FlopperWorldBatch.collectSources(level, targetPos, fluid, BlockFlopperConfig.bulkWorldRadius, maxBlocks)) {
+            BlockState drainedState = FlopperWorldBatch.getDrainedState(level.getBlockState(pos), fluid);
+            if (drainedState != null) {
+                batch.setBlock(pos, drainedState);
+            }
+        }
+        if (batch.size() == 0) {
+            return false;
+        }
+        batch.finish();
+
+        int moved = tank.fill(new FluidStack(fluid, batch.size() * FluidHelpers.BUCKET_VOLUME), IFluidHandler.FluidAction.EXECUTE);
+        recordMoved(moved);
+        FlopperMetrics metrics = getMetrics();
+        if (metrics != null) {
+            metrics.recordWorldPickup(batch.size());
+        }
+        if (BlockFlopperConfig.worldPullPushSounds) {
+            FluidStack movedFluid = new FluidStack(fluid, moved);
+            SoundEvent soundevent = fluid.getAttributes().getEmptySound(movedFluid);
+            level.playSound(null, worldPosition, soundevent, SoundSource.BLOCKS, 1.0F, 1.0F);
+        }
+        if (BlockFlopperConfig.worldPullPushNeighbourEvents) {
+            level.neighborChanged(worldPosition, Blocks.AIR, worldPosition);
+        }
+        return true;
+    }
+
+    @Nullable
+    private IFluidHandler wrapFluidBlock(BlockState blockState, Level world, BlockPos targetPos) {
         if (blockState.getBlock() instanceof LiquidBlock || blockState.getBlock() instanceof SimpleWaterloggedBlock) {
-            return LazyOptional.of(() -> new FluidHandlerBlock(blockState, world, targetPos));
+            if (this.worldSourceHandler == null) {
+                this.worldSourceHandler = new FluidHandlerBlock(blockState, world, targetPos);
+            } else {
+                this.worldSourceHandler.setTarget(blockState, world, targetPos);
+            }
+            return this.worldSourceHandler;
+        }
+        return null;
+    }
+
+    /**
+     * The tank of a flopper, which only accepts fluids that pass the filter of the flopper.
+     * Emptied tanks fall back to the shared empty stack, so they don't retain a stack of their own.
+     */
+    public static class FlopperTank extends SingleUseTank {
+
+        private final BlockEntityFlopper owner;
+
+        public FlopperTank(BlockEntityFlopper owner) {
+            super(BlockFlopperConfig.capacityMb);
+            this.owner = owner;
+        }
+
+        @Override
+        public boolean isFluidValid(FluidStack stack) {
+            return super.isFluidValid(stack) && this.owner.acceptsFluid(stack.getFluid());
+        }
+
+        @Override
+        public void setFluid(FluidStack stack) {
+            super.setFluid(stack.isEmpty() ? FluidStack.EMPTY : stack);
+        }
+
+        @Override
+        protected void sendUpdate() {
+            if (this.fluid.isEmpty()) {
+                this.fluid = FluidStack.EMPTY;
+            }
+            super.sendUpdate();
+            this.owner.onTankChanged();
         }
-        return LazyOptional.empty();
     }
 
     public static class Ticker extends BlockEntityTickerDelayed<BlockEntityFlopper> {
@@ -190,10 +1261,45 @@ public class BlockEntityFlopper extends CyclopsBlockEntity {
             super.update(level, pos, blockState, blockEntity);
 
             if (level != null && !level.isClientSide) {
-                blockEntity.setTransferCooldown(blockEntity.getTransferCooldown() - 1);
-                if (!this.isOnTransferCooldown(blockEntity)) {
-                    blockEntity.setTransferCooldown(0);
-                    this.updateHopper(level, pos, blockState, blockEntity);
+                long startTime = FlopperTickCounter.isEnabled() ? System.nanoTime() : 0;
+                int elapsed = blockEntity.onTick(level.getGameTime());
+                boolean sleeping = blockEntity.isSleeping();
+                // Tank changes by our own transfers must not wake us up
+                blockEntity.ticking = true;
+                try {
+                    if (blockEntity.savedGameTime >= 0) {
+                        // Neighbours are only guaranteed to be loaded once we tick
+                        if (BlockFlopperConfig.catchUp) {
+                            blockEntity.catchUp(level.getGameTime());
+                        }
+                        blockEntity.savedGameTime = -1;
+                    }
+                    if (sleeping) {
+                        blockEntity.tickSleeping(elapsed);
+                    } else {
+                        blockEntity.setTransferCooldown(blockEntity.getTransferCooldown() - elapsed);
+                        if (!this.isOnTransferCooldown(blockEntity)) {
+                            blockEntity.setTransferCooldown(0);
+                            if (!FlopperScheduler.tryAcquire(blockEntity)) {
+                                // The budget of this tick is used up, we will be served first in a next tick
+                                blockEntity.setTransferCooldown(FlopperScheduler.getDeferTicks());
+                            } else {
+                                FlopperMetrics metrics = blockEntity.getMetrics();
+                                long attemptStartTime = metrics != null ? System.nanoTime() : 0;
+                                boolean worked = this.updateHopper(level, pos, blockState, blockEntity);
+                                if (metrics != null) {
+                                    metrics.recordAttempt(worked, System.nanoTime() - attemptStartTime);
+                                }
+                                blockEntity.onTransferAttempt(worked);
+                            }
+                        }
+                    }
+                } finally {
+                    blockEntity.ticking = false;
+                }
+                blockEntity.trySync(level.getGameTime());
+                if (FlopperTickCounter.isEnabled()) {
+                    FlopperTickCounter.record(sleeping, System.nanoTime() - startTime);
                 }
             }
         }
@@ -204,26 +1310,54 @@ public class BlockEntityFlopper extends CyclopsBlockEntity {
 
         protected boolean updateHopper(Level level, BlockPos pos, BlockState blockState, BlockEntityFlopper blockEntity) {
             if (level != null && !level.isClientSide) {
-                if (!this.isOnTransferCooldown(blockEntity) && BlockHelpers.getSafeBlockStateProperty(blockState, BlockFlopper.ENABLED, false)) {
+                if (!this.isOnTransferCooldown(blockEntity)) {
+                    FlopperUpdateEvent event = FlopperEvents.beginUpdate();
+                    Fluid fluid = blockEntity.getTank().getFluid().getFluid();
+                    blockEntity.attemptMoved = 0;
+                    boolean enabled = BlockHelpers.getSafeBlockStateProperty(blockState, BlockFlopper.ENABLED, false);
+                    FlopperChain chain = BlockFlopperConfig.chainTransfers ? blockEntity.getChain() : null;
                     boolean worked = false;
                     boolean workedWorld = false;
+                    FlopperTransferPlan plan = blockEntity.takeTransferPlan();
 
-                    // Push fluids
-                    if (!blockEntity.getTank().isEmpty()) {
-                        worked = (BlockFlopperConfig.pushFluidRate > 0 && blockEntity.pushFluidsToTank())
-                                || (workedWorld = (BlockFlopperConfig.pushFluidsWorld && blockEntity.pushFluidsToWorld()));
+                    // Move fluids along the chain we are the head of, disabled members are checked per hop
+                    if (chain != null && chain.getHead() == blockEntity) {
+                        worked = chain.transfer();
                     }
 
-                    // Pull fluids
-                    if (!blockEntity.getTank().isFull()) {
-                        worked = (BlockFlopperConfig.pullFluidRate > 0 && blockEntity.pullFluidsFromTank())
-                                || (workedWorld = (BlockFlopperConfig.pullFluidsWorld && blockEntity.pullFluidsFromWorld()) || workedWorld)
-                                || worked;
+                    if (plan != null && enabled && chain == null && plan.isValid()) {
+                        // The transfer was planned in parallel with those of other floppers
+                        worked = plan.apply();
+                    } else if (enabled) {
+                        // Push fluids, within a chain this is only done by the tail
+                        if (!blockEntity.getTank().isEmpty() && (chain == null || chain.getTail() == blockEntity)) {
+                            worked = (BlockFlopperConfig.pushFluidRate > 0 && blockEntity.pushFluidsToTank())
+                                    || (workedWorld = (BlockFlopperConfig.pushFluidsWorld && blockEntity.pushFluidsToWorld()))
+                                    || worked;
+                        }
+
+                        // Pull fluids, unless the previous member of our chain is above us
+                        if (!blockEntity.getTank().isFull() && (chain == null || !chain.isFedFromAbove(blockEntity.getChainIndex()))) {
+                            worked = (BlockFlopperConfig.pullFluidRate > 0 && blockEntity.pullFluidsFromTank())
+                                    || (workedWorld = (BlockFlopperConfig.pullFluidsWorld && blockEntity.pullFluidsFromWorld()) || workedWorld)
+                                    || worked;
+                        }
+                    }
+
+                    if (fluid == Fluids.EMPTY) {
+                        fluid = blockEntity.getTank().getFluid().getFluid();
+                    }
+                    if (event != null) {
+                        event.commit(level, pos, blockEntity.getFacing(), fluid, blockEntity.attemptMoved);
                     }
 
                     if (worked) {
-                        blockEntity.setTransferCooldown(workedWorld
-                                ? BlockFlopperConfig.workWorldCooldown : BlockFlopperConfig.workCooldown);
+                        int cooldown = workedWorld ? BlockFlopperConfig.workWorldCooldown : BlockFlopperConfig.workCooldown;
+                        if (blockEntity.isInLoop()) {
+                            // Don't waste time moving the same fluid around in circles
+                            cooldown = Math.max(cooldown, BlockFlopperConfig.loopCooldown);
+                        }
+                        blockEntity.setTransferCooldown(cooldown);
                         blockEntity.setChanged();
                         return true;
                     }
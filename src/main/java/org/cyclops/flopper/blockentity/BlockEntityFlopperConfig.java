@@ -7,7 +7,6 @@ import net.minecraftforge.api.distmarker.OnlyIn;
 import org.cyclops.cyclopscore.config.extendedconfig.BlockEntityConfig;
 import org.cyclops.flopper.Flopper;
 import org.cyclops.flopper.RegistryEntries;
-import org.cyclops.flopper.block.BlockFlopperConfig;
 import org.cyclops.flopper.client.render.blockentity.RenderBlockEntityFlopper;
 
 /**
@@ -30,8 +29,7 @@ public class BlockEntityFlopperConfig extends BlockEntityConfig<BlockEntityFlopp
     @OnlyIn(Dist.CLIENT)
     public void onRegistered() {
         super.onRegistered();
-        if (BlockFlopperConfig.renderFluid) {
-            getMod().getProxy().registerRenderer(getInstance(), RenderBlockEntityFlopper::new);
-        }
+        // Configs are not loaded yet at this point, so the renderer checks the render mode by itself
+        getMod().getProxy().registerRenderer(getInstance(), RenderBlockEntityFlopper::new);
     }
 }
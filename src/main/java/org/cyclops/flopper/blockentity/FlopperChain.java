@@ -0,0 +1,217 @@
+package org.cyclops.flopper.blockentity;
+
+import com.google.common.collect.Lists;
+import net.minecraft.core.BlockPos;
+import net.minecraft.core.Direction;
+import net.minecraft.world.level.Level;
+import net.minecraft.world.level.block.entity.BlockEntity;
+import org.cyclops.cyclopscore.helper.BlockHelpers;
+import org.cyclops.flopper.block.BlockFlopper;
+import org.cyclops.flopper.block.BlockFlopperConfig;
+
+import javax.annotation.Nullable;
+import java.util.List;
+
+/**
+ * A linear run of floppers that each push into the next one.
+ * The head of the chain moves fluids along all hops in a single pass,
+ * so that the other members don't have to do a transfer of their own for each hop.
+ * @author rubensworks
+ */
+public class FlopperChain {
+
+    public static final int MAX_LENGTH = 256;
+
+    private final BlockEntityFlopper[] members;
+    private boolean valid = true;
+    private boolean transferring = false;
+
+    protected FlopperChain(BlockEntityFlopper[] members) {
+        this.members = members;
+    }
+
+    public boolean isValid() {
+        return valid;
+    }
+
+    public void invalidate() {
+        this.valid = false;
+    }
+
+    /**
+     * @return If this chain is currently moving fluid between its members.
+     */
+    public boolean isTransferring() {
+        return transferring;
+    }
+
+    public int getLength() {
+        return members.length;
+    }
+
+    public BlockEntityFlopper getMember(int index) {
+        return members[index];
+    }
+
+    public BlockEntityFlopper getHead() {
+        return members[0];
+    }
+
+    public BlockEntityFlopper getTail() {
+        return members[members.length - 1];
+    }
+
+    /**
+     * @param index The index of a member.
+     * @return If the member at the given index is being fed by the previous member from above,
+     *         in which case it would normally also pull from it.
+     */
+    public boolean isFedFromAbove(int index) {
+        return index > 0 && members[index - 1].getBlockPos().equals(members[index].getBlockPos().relative(Direction.UP));
+    }
+
+    /**
+     * Move fluids along all hops of this chain, starting at the tail so that each hop
+     * moves at most what it would move when all members would transfer by themselves.
+     * Members are not woken up by these moves, except for the tail, which has to push the received fluid further.
+     * @return If some fluid was moved.
+     */
+    public boolean transfer() {
+        BlockEntityFlopper tail = getTail();
+        int tailAmount = tail.getTank().getFluidAmount();
+        boolean worked;
+        this.transferring = true;
+        try {
+            worked = transferHops();
+        } finally {
+            this.transferring = false;
+        }
+        if (tail.getTank().getFluidAmount() > tailAmount && !tail.isRemoved()) {
+            tail.wakeUp();
+        }
+        return worked;
+    }
+
+    protected boolean transferHops() {
+        boolean worked = false;
+        for (int i = members.length - 2; i >= 0; i--) {
+            BlockEntityFlopper from = members[i];
+            BlockEntityFlopper to = members[i + 1];
+            if (from.isRemoved() || to.isRemoved()) {
+                invalidate();
+                return worked;
+            }
+
+            int rate = 0;
+            if (isEnabled(from)) {
+                rate += BlockFlopperConfig.pushFluidRate;
+            }
+            if (isFedFromAbove(i + 1) && isEnabled(to)) {
+                rate += BlockFlopperConfig.pullFluidRate;
+            }
+            if (rate > 0) {
+                int moved = FlopperTransfers.move(from.getTank(), to.getTank(), rate);
+                if (moved > 0) {
+                    from.recordMoved(moved);
+                    from.setChanged();
+                    to.setChanged();
+                    worked = true;
+                }
+            }
+        }
+        return worked;
+    }
+
+    protected static boolean isEnabled(BlockEntityFlopper flopper) {
+        return BlockHelpers.getSafeBlockStateProperty(flopper.getBlockState(), BlockFlopper.ENABLED, false);
+    }
+
+    /**
+     * Resolve the chain the given flopper is part of, and assign it to all its members.
+     * @param flopper A flopper.
+     * @return The chain, or null if the flopper is not part of a chain.
+     */
+    @Nullable
+    public static FlopperChain resolve(BlockEntityFlopper flopper) {
+        Level level = flopper.getLevel();
+
+        // Walk upstream to find the head of the chain
+        BlockEntityFlopper head = flopper;
+        for (int i = 0; i < MAX_LENGTH; i++) {
+            BlockEntityFlopper feeder = getSingleFeeder(level, head);
+            if (feeder == null) {
+                break;
+            }
+            if (feeder == flopper) {
+                // Floppers in a cycle have no head, let them transfer by themselves
+                flopper.setChain(null, -1);
+                return null;
+            }
+            head = feeder;
+        }
+
+        // Walk downstream to collect all members
+        List<BlockEntityFlopper> members = Lists.newArrayList(head);
+        BlockEntityFlopper current = head;
+        while (members.size() < MAX_LENGTH) {
+            BlockEntityFlopper next = getTarget(level, current);
+            if (next == null || next == head || getSingleFeeder(level, next) != current) {
+                break;
+            }
+            members.add(next);
+            current = next;
+        }
+
+        if (members.size() < 2 || !members.contains(flopper)) {
+            flopper.setChain(null, -1);
+            return null;
+        }
+        FlopperChain chain = new FlopperChain(members.toArray(new BlockEntityFlopper[0]));
+        for (int i = 0; i < chain.members.length; i++) {
+            chain.members[i].setChain(chain, i);
+        }
+        return chain;
+    }
+
+    /**
+     * @param level The level.
+     * @param flopper A flopper.
+     * @return The flopper the given flopper pushes into, or null.
+     */
+    @Nullable
+    protected static BlockEntityFlopper getTarget(Level level, BlockEntityFlopper flopper) {
+        if (!flopper.isNeighbourLoaded(flopper.getFacing())) {
+            return null;
+        }
+        BlockEntity blockEntity = level.getBlockEntity(flopper.getBlockPos().relative(flopper.getFacing()));
+        return blockEntity instanceof BlockEntityFlopper ? (BlockEntityFlopper) blockEntity : null;
+    }
+
+    /**
+     * @param level The level.
+     * @param flopper A flopper.
+     * @return The only flopper pushing into the given flopper, or null if there are none or multiple.
+     */
+    @Nullable
+    protected static BlockEntityFlopper getSingleFeeder(Level level, BlockEntityFlopper flopper) {
+        BlockPos pos = flopper.getBlockPos();
+        BlockEntityFlopper feeder = null;
+        for (Direction side : Direction.values()) {
+            if (!flopper.isNeighbourLoaded(side)) {
+                continue;
+            }
+            BlockEntity blockEntity = level.getBlockEntity(pos.relative(side));
+            if (blockEntity instanceof BlockEntityFlopper
+                    && !blockEntity.isRemoved()
+                    && ((BlockEntityFlopper) blockEntity).getFacing() == side.getOpposite()) {
+                if (feeder != null) {
+                    return null;
+                }
+                feeder = (BlockEntityFlopper) blockEntity;
+            }
+        }
+        // Distributors push into more than one tank, so they can't feed a chain
+        return feeder != null && feeder.isDistributor() ? null : feeder;
+    }
+
+}
@@ -0,0 +1,164 @@
+package org.cyclops.flopper.blockentity;
+
+import net.minecraft.core.BlockPos;
+import net.minecraft.core.Direction;
+import net.minecraft.world.level.Level;
+import net.minecraft.world.level.block.entity.BlockEntity;
+import net.minecraftforge.common.util.LazyOptional;
+import net.minecraftforge.fluids.FluidStack;
+import net.minecraftforge.fluids.capability.CapabilityFluidHandler;
+import net.minecraftforge.fluids.capability.IFluidHandler;
+import org.cyclops.cyclopscore.helper.BlockEntityHelpers;
+
+import javax.annotation.Nullable;
+import java.util.Arrays;
+
+/**
+ * Splits the pushed fluid of a flopper in distributor mode across all adjacent fluid handlers,
+ * except the one above it, floppers that push into it and those in unloaded chunks.
+ * The handlers are resolved once, and only resolved again after a neighbour has changed.
+ * In proportional mode, the free space of the targets is only simulated again after the targets or the fluid have changed,
+ * or after a target took less than its share.
+ * @author rubensworks
+ */
+public class FlopperDistributor {
+
+    public static final Direction[] SIDES = {Direction.DOWN, Direction.NORTH, Direction.SOUTH, Direction.WEST, Direction.EAST};
+
+    private final BlockEntityFlopper flopper;
+    private final Mode mode;
+    @SuppressWarnings("unchecked")
+    private final LazyOptional<IFluidHandler>[] handlers = new LazyOptional[SIDES.length];
+    private final IFluidHandler[] targets = new IFluidHandler[SIDES.length];
+    private final int[] space = new int[SIDES.length];
+    private int targetCount = -1;
+    private int nextTarget = 0;
+    private FluidStack offer = FluidStack.EMPTY;
+    private boolean weightsValid = false;
+
+    public FlopperDistributor(BlockEntityFlopper flopper, Mode mode) {
+        this.flopper = flopper;
+        this.mode = mode;
+        Arrays.fill(this.handlers, LazyOptional.empty());
+    }
+
+    public Mode getMode() {
+        return mode;
+    }
+
+    /**
+     * Resolve the targets again before the next push.
+     */
+    public void invalidate() {
+        this.targetCount = -1;
+        this.weightsValid = false;
+    }
+
+    /**
+     * @param level The level.
+     * @param pos A position.
+     * @param side A side of the given position.
+     * @return If the given side of the position holds a flopper that pushes into the position.
+     */
+    public static boolean isFedFrom(Level level, BlockPos pos, Direction side) {
+        BlockEntity blockEntity = level.getBlockEntity(pos.relative(side));
+        return blockEntity instanceof BlockEntityFlopper && ((BlockEntityFlopper) blockEntity).getFacing() == side.getOpposite();
+    }
+
+    protected int getTargetCount() {
+        if (this.targetCount < 0) {
+            Level level = this.flopper.getLevel();
+            BlockPos pos = this.flopper.getBlockPos();
+            this.targetCount = 0;
+            for (int i = 0; i < SIDES.length; i++) {
+                Direction side = SIDES[i];
+                LazyOptional<IFluidHandler> handler = !this.flopper.isNeighbourLoaded(side) || isFedFrom(level, pos, side) ? LazyOptional.empty()
+                        : BlockEntityHelpers.getCapability(level, pos.relative(side), side.getOpposite(), CapabilityFluidHandler.FLUID_HANDLER_CAPABILITY);
+                if (handler != this.handlers[i]) {
+                    this.handlers[i] = handler;
+                    if (handler.isPresent()) {
+                        handler.addListener(this::onHandlerInvalidated);
+                    }
+                }
+                IFluidHandler fluidHandler = handler.orElse(null);
+                if (fluidHandler != null) {
+                    this.targets[this.targetCount++] = fluidHandler;
+                }
+            }
+            Arrays.fill(this.targets, this.targetCount, SIDES.length, null);
+        }
+        return this.targetCount;
+    }
+
+    private void onHandlerInvalidated(LazyOptional<IFluidHandler> handler) {
+        invalidate();
+        this.flopper.wakeUp();
+    }
+
+    /**
+     * Push fluid from the tank of the flopper into all targets.
+     * Targets are visited starting from a different one each time, and fluid that one target can't take
+     * is handed to the next targets.
+     * @param maxAmount The maximum amount to push in total.
+     * @return The pushed amount.
+     */
+    public int push(int maxAmount) {
+        int count = getTargetCount();
+        if (count == 0) {
+            return 0;
+        }
+        IFluidHandler tank = this.flopper.getTank();
+
+        // The weight of each target in the split
+        int remainingWeight = 0;
+        if (this.mode == Mode.PROPORTIONAL) {
+            FluidStack fluid = this.flopper.getTank().getFluid();
+            if (!this.offer.isFluidEqual(fluid)) {
+                this.offer = new FluidStack(fluid, this.flopper.getTank().getCapacity());
+                this.weightsValid = false;
+            }
+            if (!this.weightsValid) {
+                for (int i = 0; i < count; i++) {
+                    this.space[i] = this.targets[i].fill(this.offer, IFluidHandler.FluidAction.SIMULATE);
+                }
+                this.weightsValid = true;
+            }
+            for (int i = 0; i < count; i++) {
+                remainingWeight += this.space[i];
+            }
+        } else {
+            Arrays.fill(this.space, 0, count, 1);
+            remainingWeight = count;
+        }
+
+        int remaining = maxAmount;
+        int start = this.nextTarget % count;
+        this.nextTarget = start + 1;
+        for (int j = 0; j < count && remaining > 0 && remainingWeight > 0; j++) {
+            int i = (start + j) % count;
+            int weight = this.space[i];
+            if (weight > 0) {
+                // Round up, so that the last target with weight gets all that is remaining
+                int share = (int) (((long) remaining * weight + remainingWeight - 1) / remainingWeight);
+                int moved = FlopperTransfers.transfer(this.targets[i], tank, share);
+                if (moved < share && this.flopper.getTank().getFluidAmount() > 0) {
+                    // The target had less space than it had before
+                    this.weightsValid = false;
+                }
+                remaining -= moved;
+                remainingWeight -= weight;
+            }
+        }
+        if (remaining > 0 && this.flopper.getTank().getFluidAmount() > 0) {
+            // Targets that had no space before may have space again
+            this.weightsValid = false;
+        }
+        return maxAmount - remaining;
+    }
+
+    public enum Mode {
+        ROUND_ROBIN,
+        PROPORTIONAL
+    }
+
+}
@@ -0,0 +1,103 @@
+package org.cyclops.flopper.blockentity;
+
+import com.google.common.collect.Maps;
+import net.minecraft.core.BlockPos;
+import net.minecraft.resources.ResourceKey;
+import net.minecraft.world.level.Level;
+import net.minecraft.world.level.block.state.BlockState;
+import net.minecraft.world.level.material.Fluid;
+import net.minecraft.world.level.material.Fluids;
+import net.minecraftforge.event.TagsUpdatedEvent;
+import net.minecraftforge.event.world.WorldEvent;
+import net.minecraftforge.eventbus.api.SubscribeEvent;
+import net.minecraftforge.fluids.FluidStack;
+import org.cyclops.cyclopscore.helper.FluidHelpers;
+
+import javax.annotation.Nullable;
+import java.util.Map;
+
+/**
+ * World placement attributes of a fluid, which are cached per dimension for vanilla fluids.
+ * Vanilla fluids place the same block everywhere, and only vaporize depending on the dimension type,
+ * so their attributes are determined once at the position of the first flopper that needs them.
+ * Other fluids may depend on the position, so their attributes are determined on every call.
+ * The cache is only used on the server, and is cleared when its data packs are reloaded.
+ * @author rubensworks
+ */
+public class FlopperFluidAttributes {
+
+    private static final Map<ResourceKey<Level>, Map<Fluid, FlopperFluidAttributes>> CACHE = Maps.newConcurrentMap();
+
+    @Nullable
+    private final BlockState placementState;
+
+    protected FlopperFluidAttributes(@Nullable BlockState placementState) {
+        this.placementState = placementState;
+    }
+
+    /**
+     * @param level The level.
+     * @param pos The position at which the fluid would be placed.
+     * @param fluid The fluid.
+     * @return The placement attributes of the fluid at the given position.
+     */
+    public static FlopperFluidAttributes get(Level level, BlockPos pos, Fluid fluid) {
+        if (!isCacheable(fluid)) {
+            return create(level, pos, fluid);
+        }
+        Map<Fluid, FlopperFluidAttributes> dimensionCache = CACHE.computeIfAbsent(level.dimension(), key -> Maps.newIdentityHashMap());
+        FlopperFluidAttributes attributes = dimensionCache.get(fluid);
+        if (attributes == null) {
+            attributes = create(level, pos, fluid);
+            dimensionCache.put(fluid, attributes);
+        }
+        return attributes;
+    }
+
+    /**
+     * @param fluid A fluid.
+     * @return If the attributes of the given fluid only depend on the dimension.
+     */
+    public static boolean isCacheable(Fluid fluid) {
+        return fluid.isSame(Fluids.WATER) || fluid.isSame(Fluids.LAVA);
+    }
+
+    protected static FlopperFluidAttributes create(Level level, BlockPos pos, Fluid fluid) {
+        FluidStack fluidStack = new FluidStack(fluid, FluidHelpers.BUCKET_VOLUME);
+        if (level.dimensionType().ultraWarm() && fluid.getAttributes().doesVaporize(level, pos, fluidStack)) {
+            return new FlopperFluidAttributes(null);
+        }
+        return new FlopperFluidAttributes(FlopperTransfers.getPlacementState(fluid, level, pos));
+    }
+
+    /**
+     * @return If the fluid can be placed in the world.
+     */
+    public boolean isPlaceable() {
+        return placementState != null;
+    }
+
+    /**
+     * @return The block state to place, or null if the fluid can not be placed.
+     */
+    @Nullable
+    public BlockState getPlacementState() {
+        return placementState;
+    }
+
+    @SubscribeEvent
+    public static void onTagsUpdated(TagsUpdatedEvent event) {
+        // Tags received by clients are handled on the client thread, and don't affect the server
+        if (event.getUpdateCause() == TagsUpdatedEvent.UpdateCause.SERVER_DATA_LOAD) {
+            CACHE.clear();
+        }
+    }
+
+    @SubscribeEvent
+    public static void onWorldUnload(WorldEvent.Unload event) {
+        if (!event.getWorld().isClientSide() && event.getWorld() instanceof Level) {
+            CACHE.remove(((Level) event.getWorld()).dimension());
+        }
+    }
+
+}
@@ -0,0 +1,128 @@
+package org.cyclops.flopper.blockentity;
+
+import net.minecraft.core.Registry;
+import net.minecraft.nbt.CompoundTag;
+import net.minecraft.nbt.ListTag;
+import net.minecraft.nbt.StringTag;
+import net.minecraft.nbt.Tag;
+import net.minecraft.resources.ResourceLocation;
+import net.minecraft.world.level.material.FlowingFluid;
+import net.minecraft.world.level.material.Fluid;
+import net.minecraft.world.level.material.Fluids;
+
+import java.util.BitSet;
+
+/**
+ * A whitelist and blacklist of fluids a flopper accepts.
+ * Fluids are stored as bits at their registry id, so that matching is a single lookup.
+ * If the whitelist is not empty, only whitelisted fluids are accepted.
+ * Blacklisted fluids are never accepted.
+ * @author rubensworks
+ */
+public class FlopperFluidFilter {
+
+    private final BitSet whitelist = new BitSet();
+    private final BitSet blacklist = new BitSet();
+
+    public boolean isEmpty() {
+        return whitelist.isEmpty() && blacklist.isEmpty();
+    }
+
+    /**
+     * @param fluid A fluid.
+     * @return If the fluid passes this filter.
+     */
+    public boolean accepts(Fluid fluid) {
+        int id = getId(fluid);
+        return !blacklist.get(id) && (whitelist.isEmpty() || whitelist.get(id));
+    }
+
+    /**
+     * @param fluid A fluid.
+     * @return The current entry of the fluid.
+     */
+    public Entry getEntry(Fluid fluid) {
+        int id = getId(fluid);
+        if (whitelist.get(id)) {
+            return Entry.WHITELIST;
+        }
+        if (blacklist.get(id)) {
+            return Entry.BLACKLIST;
+        }
+        return Entry.NONE;
+    }
+
+    /**
+     * Move the given fluid to the next entry, from none to whitelisted to blacklisted and back.
+     * @param fluid A fluid.
+     * @return The new entry of the fluid.
+     */
+    public Entry cycle(Fluid fluid) {
+        int id = getId(fluid);
+        Entry entry = getEntry(fluid).next();
+        whitelist.set(id, entry == Entry.WHITELIST);
+        blacklist.set(id, entry == Entry.BLACKLIST);
+        return entry;
+    }
+
+    public CompoundTag write() {
+        CompoundTag tag = new CompoundTag();
+        tag.put("whitelist", writeFluids(whitelist));
+        tag.put("blacklist", writeFluids(blacklist));
+        return tag;
+    }
+
+    public void read(CompoundTag tag) {
+        readFluids(tag.getList("whitelist", Tag.TAG_STRING), whitelist);
+        readFluids(tag.getList("blacklist", Tag.TAG_STRING), blacklist);
+    }
+
+    /**
+     * Fluids are stored by name, as registry ids are not stable between game sessions.
+     * @param fluids A fluid bitset.
+     * @return The fluid names.
+     */
+    protected static ListTag writeFluids(BitSet fluids) {
+        ListTag list = new ListTag();
+        for (int id = fluids.nextSetBit(0); id >= 0; id = fluids.nextSetBit(id + 1)) {
+            Fluid fluid = Registry.FLUID.byId(id);
+            if (fluid != Fluids.EMPTY) {
+                list.add(StringTag.valueOf(Registry.FLUID.getKey(fluid).toString()));
+            }
+        }
+        return list;
+    }
+
+    protected static void readFluids(ListTag list, BitSet fluids) {
+        fluids.clear();
+        for (int i = 0; i < list.size(); i++) {
+            ResourceLocation name = ResourceLocation.tryParse(list.getString(i));
+            // Fluids of removed mods are dropped
+            if (name != null && Registry.FLUID.containsKey(name)) {
+                fluids.set(getId(Registry.FLUID.get(name)));
+            }
+        }
+    }
+
+    /**
+     * @param fluid A fluid.
+     * @return The registry id of the source variant of the fluid.
+     */
+    protected static int getId(Fluid fluid) {
+        if (fluid instanceof FlowingFluid) {
+            fluid = ((FlowingFluid) fluid).getSource();
+        }
+        return Registry.FLUID.getId(fluid);
+    }
+
+    public enum Entry {
+        NONE,
+        WHITELIST,
+        BLACKLIST;
+
+        public Entry next() {
+            return values()[(ordinal() + 1) % values().length];
+        }
+    }
+
+}
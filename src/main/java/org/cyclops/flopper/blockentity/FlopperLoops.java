@@ -0,0 +1,114 @@
+package org.cyclops.flopper.blockentity;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Sets;
+import it.unimi.dsi.fastutil.longs.LongOpenHashSet;
+import it.unimi.dsi.fastutil.longs.LongSet;
+import net.minecraft.core.BlockPos;
+import net.minecraft.core.Direction;
+import net.minecraft.world.level.Level;
+import net.minecraft.world.level.block.entity.BlockEntity;
+import net.minecraftforge.fluids.capability.CapabilityFluidHandler;
+
+import javax.annotation.Nullable;
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Detects floppers that are part of a loop in which fluids circulate forever.
+ * Loops are found in the graph of floppers that move fluids into each other:
+ * a flopper moves fluids to the flopper it faces, to the flopper below it which pulls from it,
+ * and to the flopper below a tank it pushes into.
+ * @author rubensworks
+ */
+public final class FlopperLoops {
+
+    private static final int MAX_NODES = 256;
+
+    private static final Set<BlockEntityFlopper> LOOPING = Sets.newIdentityHashSet();
+
+    private FlopperLoops() {
+
+    }
+
+    /**
+     * @param flopper A flopper.
+     * @return If fluids that leave the given flopper can end up in it again.
+     */
+    public static boolean isInLoop(BlockEntityFlopper flopper) {
+        Level level = flopper.getLevel();
+        LongSet visited = new LongOpenHashSet();
+        Deque<BlockEntityFlopper> queue = new ArrayDeque<>();
+        List<BlockEntityFlopper> successors = Lists.newArrayListWithCapacity(3);
+        queue.add(flopper);
+        while (!queue.isEmpty() && visited.size() < MAX_NODES) {
+            BlockEntityFlopper current = queue.poll();
+            successors.clear();
+            addSuccessors(level, current, successors);
+            for (BlockEntityFlopper successor : successors) {
+                if (successor == flopper) {
+                    return true;
+                }
+                if (visited.add(successor.getBlockPos().asLong())) {
+                    queue.add(successor);
+                }
+            }
+        }
+        return false;
+    }
+
+    protected static void addSuccessors(Level level, BlockEntityFlopper flopper, List<BlockEntityFlopper> successors) {
+        BlockPos pos = flopper.getBlockPos();
+        if (flopper.isDistributor()) {
+            for (Direction side : FlopperDistributor.SIDES) {
+                if (flopper.isNeighbourLoaded(side) && !FlopperDistributor.isFedFrom(level, pos, side)) {
+                    addTargetSuccessors(level, flopper, pos.relative(side), successors);
+                }
+            }
+        } else if (flopper.isNeighbourLoaded(flopper.getFacing())) {
+            addTargetSuccessors(level, flopper, pos.relative(flopper.getFacing()), successors);
+        }
+        BlockEntityFlopper below = getFlopper(level, pos.below());
+        if (below != null && !successors.contains(below)) {
+            successors.add(below);
+        }
+    }
+
+    protected static void addTargetSuccessors(Level level, BlockEntityFlopper flopper, BlockPos targetPos, List<BlockEntityFlopper> successors) {
+        BlockEntity target = level.getBlockEntity(targetPos);
+        if (target instanceof BlockEntityFlopper) {
+            successors.add((BlockEntityFlopper) target);
+        } else if (target != null && target.getCapability(CapabilityFluidHandler.FLUID_HANDLER_CAPABILITY, Direction.DOWN).isPresent()) {
+            BlockEntityFlopper puller = getFlopper(level, targetPos.below());
+            if (puller != null && puller != flopper && !successors.contains(puller)) {
+                successors.add(puller);
+            }
+        }
+    }
+
+    @Nullable
+    protected static BlockEntityFlopper getFlopper(Level level, BlockPos pos) {
+        BlockEntity blockEntity = level.getBlockEntity(pos);
+        return blockEntity instanceof BlockEntityFlopper && !blockEntity.isRemoved() ? (BlockEntityFlopper) blockEntity : null;
+    }
+
+    protected static void setLooping(BlockEntityFlopper flopper, boolean looping) {
+        if (looping) {
+            LOOPING.add(flopper);
+        } else {
+            LOOPING.remove(flopper);
+        }
+    }
+
+    /**
+     * @return All loaded floppers that were last detected to be in a loop.
+     */
+    public static Set<BlockEntityFlopper> getLooping() {
+        LOOPING.removeIf(BlockEntityFlopper::isRemoved);
+        return Collections.unmodifiableSet(LOOPING);
+    }
+
+}
@@ -0,0 +1,197 @@
+package org.cyclops.flopper.blockentity;
+
+import com.google.common.collect.Sets;
+import net.minecraft.core.BlockPos;
+import net.minecraft.resources.ResourceKey;
+import net.minecraft.world.level.Level;
+import org.cyclops.flopper.GeneralConfig;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Collectors;
+
+/**
+ * Performance metrics of a single flopper, and the global totals over all floppers.
+ * These are only collected when {@link GeneralConfig#metrics} is enabled,
+ * otherwise floppers do not even create an instance.
+ * @author rubensworks
+ */
+public class FlopperMetrics {
+
+    private static final Set<FlopperMetrics> TRACKED = Sets.newIdentityHashSet();
+
+    private static final LongAdder TOTAL_NANOS = new LongAdder();
+    private static final LongAdder TOTAL_SUCCESSFUL_TRANSFERS = new LongAdder();
+    private static final LongAdder TOTAL_FAILED_TRANSFERS = new LongAdder();
+    private static final LongAdder TOTAL_MOVED = new LongAdder();
+    private static final LongAdder TOTAL_WORLD_PLACEMENTS = new LongAdder();
+    private static final LongAdder TOTAL_WORLD_PICKUPS = new LongAdder();
+
+    private final ResourceKey<Level> dimension;
+    private final BlockPos pos;
+    private long nanos = 0;
+    private long successfulTransfers = 0;
+    private long failedTransfers = 0;
+    private long moved = 0;
+    private long worldPlacements = 0;
+    private long worldPickups = 0;
+
+    protected FlopperMetrics(ResourceKey<Level> dimension, BlockPos pos) {
+        this.dimension = dimension;
+        this.pos = pos;
+    }
+
+    public static boolean isEnabled() {
+        return GeneralConfig.metrics;
+    }
+
+    /**
+     * Create new metrics for a flopper, which will be tracked until they are removed.
+     * @param dimension The dimension of the flopper.
+     * @param pos The position of the flopper.
+     * @return The metrics.
+     */
+    public static FlopperMetrics create(ResourceKey<Level> dimension, BlockPos pos) {
+        FlopperMetrics metrics = new FlopperMetrics(dimension, pos);
+        TRACKED.add(metrics);
+        return metrics;
+    }
+
+    public static void remove(FlopperMetrics metrics) {
+        TRACKED.remove(metrics);
+    }
+
+    /**
+     * Reset the metrics of all floppers and the global totals.
+     */
+    public static void reset() {
+        for (FlopperMetrics metrics : TRACKED) {
+            metrics.nanos = 0;
+            metrics.successfulTransfers = 0;
+            metrics.failedTransfers = 0;
+            metrics.moved = 0;
+            metrics.worldPlacements = 0;
+            metrics.worldPickups = 0;
+        }
+        TOTAL_NANOS.reset();
+        TOTAL_SUCCESSFUL_TRANSFERS.reset();
+        TOTAL_FAILED_TRANSFERS.reset();
+        TOTAL_MOVED.reset();
+        TOTAL_WORLD_PLACEMENTS.reset();
+        TOTAL_WORLD_PICKUPS.reset();
+    }
+
+    /**
+     * @param count The maximum number of floppers to return.
+     * @return The floppers that have spent the most time transferring, most expensive first.
+     */
+    public static List<FlopperMetrics> getMostExpensive(int count) {
+        return TRACKED.stream()
+                .sorted(Comparator.comparingLong(FlopperMetrics::getNanos).reversed())
+                .limit(count)
+                .collect(Collectors.toList());
+    }
+
+    public static int getTrackedCount() {
+        return TRACKED.size();
+    }
+
+    public static long getTotalNanos() {
+        return TOTAL_NANOS.sum();
+    }
+
+    public static long getTotalSuccessfulTransfers() {
+        return TOTAL_SUCCESSFUL_TRANSFERS.sum();
+    }
+
+    public static long getTotalFailedTransfers() {
+        return TOTAL_FAILED_TRANSFERS.sum();
+    }
+
+    public static long getTotalMoved() {
+        return TOTAL_MOVED.sum();
+    }
+
+    public static long getTotalWorldPlacements() {
+        return TOTAL_WORLD_PLACEMENTS.sum();
+    }
+
+    public static long getTotalWorldPickups() {
+        return TOTAL_WORLD_PICKUPS.sum();
+    }
+
+    /**
+     * Register a transfer attempt.
+     * @param worked If the attempt moved any fluid.
+     * @param nanos The duration of the attempt in nanoseconds.
+     */
+    public void recordAttempt(boolean worked, long nanos) {
+        this.nanos += nanos;
+        TOTAL_NANOS.add(nanos);
+        if (worked) {
+            this.successfulTransfers++;
+            TOTAL_SUCCESSFUL_TRANSFERS.increment();
+        } else {
+            this.failedTransfers++;
+            TOTAL_FAILED_TRANSFERS.increment();
+        }
+    }
+
+    /**
+     * @param amount The amount of fluid that was moved, in mB.
+     */
+    public void recordMoved(int amount) {
+        this.moved += amount;
+        TOTAL_MOVED.add(amount);
+    }
+
+    /**
+     * @param blocks The number of fluid blocks that were placed.
+     */
+    public void recordWorldPlacement(int blocks) {
+        this.worldPlacements += blocks;
+        TOTAL_WORLD_PLACEMENTS.add(blocks);
+    }
+
+    /**
+     * @param blocks The number of fluid blocks that were picked up.
+     */
+    public void recordWorldPickup(int blocks) {
+        this.worldPickups += blocks;
+        TOTAL_WORLD_PICKUPS.add(blocks);
+    }
+
+    public ResourceKey<Level> getDimension() {
+        return dimension;
+    }
+
+    public BlockPos getPos() {
+        return pos;
+    }
+
+    public long getNanos() {
+        return nanos;
+    }
+
+    public long getSuccessfulTransfers() {
+        return successfulTransfers;
+    }
+
+    public long getFailedTransfers() {
+        return failedTransfers;
+    }
+
+    public long getMoved() {
+        return moved;
+    }
+
+    public long getWorldPlacements() {
+        return worldPlacements;
+    }
+
+    public long getWorldPickups() {
+        return worldPickups;
+    }
+}
@@ -0,0 +1,116 @@
+package org.cyclops.flopper.blockentity;
+
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+import it.unimi.dsi.fastutil.longs.Long2ObjectMap;
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+import net.minecraft.core.BlockPos;
+import net.minecraft.core.Direction;
+import net.minecraft.world.level.ChunkPos;
+import net.minecraft.world.level.Level;
+import net.minecraft.world.level.LevelAccessor;
+import net.minecraft.world.level.chunk.LevelChunk;
+import net.minecraftforge.event.world.ChunkEvent;
+import net.minecraftforge.event.world.WorldEvent;
+import net.minecraftforge.eventbus.api.SubscribeEvent;
+
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Keeps track of the floppers on chunk borders by the neighbouring chunks they interact with,
+ * so that they know if their neighbours are loaded without looking up the chunk on each transfer.
+ * Floppers away from chunk borders only have neighbours in their own chunk, and are not tracked.
+ * @author rubensworks
+ */
+public final class FlopperNeighbourChunks {
+
+    private static final Map<LevelAccessor, Long2ObjectMap<Set<BlockEntityFlopper>>> FLOPPERS = Maps.newIdentityHashMap();
+
+    private FlopperNeighbourChunks() {
+
+    }
+
+    /**
+     * Start tracking the given flopper if it is on a chunk border, and initialize its loaded neighbours.
+     * @param flopper A flopper on the server.
+     */
+    public static void add(BlockEntityFlopper flopper) {
+        Level level = flopper.getLevel();
+        BlockPos pos = flopper.getBlockPos();
+        for (Direction side : Direction.Plane.HORIZONTAL) {
+            BlockPos neighbour = pos.relative(side);
+            int chunkX = neighbour.getX() >> 4;
+            int chunkZ = neighbour.getZ() >> 4;
+            if (chunkX != pos.getX() >> 4 || chunkZ != pos.getZ() >> 4) {
+                FLOPPERS.computeIfAbsent(level, l -> new Long2ObjectOpenHashMap<>())
+                        .computeIfAbsent(ChunkPos.asLong(chunkX, chunkZ), c -> Sets.newIdentityHashSet())
+                        .add(flopper);
+                flopper.setNeighbourLoaded(side, level.hasChunk(chunkX, chunkZ));
+            }
+        }
+    }
+
+    /**
+     * Stop tracking the given flopper.
+     * @param flopper A flopper on the server.
+     */
+    public static void remove(BlockEntityFlopper flopper) {
+        Long2ObjectMap<Set<BlockEntityFlopper>> floppers = FLOPPERS.get(flopper.getLevel());
+        if (floppers == null) {
+            return;
+        }
+        BlockPos pos = flopper.getBlockPos();
+        for (Direction side : Direction.Plane.HORIZONTAL) {
+            BlockPos neighbour = pos.relative(side);
+            long chunk = ChunkPos.asLong(neighbour.getX() >> 4, neighbour.getZ() >> 4);
+            Set<BlockEntityFlopper> chunkFloppers = floppers.get(chunk);
+            if (chunkFloppers != null && chunkFloppers.remove(flopper) && chunkFloppers.isEmpty()) {
+                floppers.remove(chunk);
+            }
+        }
+    }
+
+    /**
+     * Called when a chunk was loaded or unloaded.
+     * @param level The level.
+     * @param chunkPos The chunk position.
+     * @param loaded If the chunk was loaded, otherwise it was unloaded.
+     */
+    public static void onChunkChanged(LevelAccessor level, ChunkPos chunkPos, boolean loaded) {
+        Long2ObjectMap<Set<BlockEntityFlopper>> floppers = FLOPPERS.get(level);
+        Set<BlockEntityFlopper> chunkFloppers = floppers != null ? floppers.get(chunkPos.toLong()) : null;
+        if (chunkFloppers == null) {
+            return;
+        }
+        for (BlockEntityFlopper flopper : chunkFloppers) {
+            BlockPos pos = flopper.getBlockPos();
+            for (Direction side : Direction.Plane.HORIZONTAL) {
+                BlockPos neighbour = pos.relative(side);
+                if (neighbour.getX() >> 4 == chunkPos.x && neighbour.getZ() >> 4 == chunkPos.z) {
+                    flopper.setNeighbourLoaded(side, loaded);
+                }
+            }
+        }
+    }
+
+    @SubscribeEvent
+    public static void onChunkLoad(ChunkEvent.Load event) {
+        if (!event.getWorld().isClientSide() && event.getChunk() instanceof LevelChunk) {
+            onChunkChanged(event.getWorld(), event.getChunk().getPos(), true);
+        }
+    }
+
+    @SubscribeEvent
+    public static void onChunkUnload(ChunkEvent.Unload event) {
+        if (!event.getWorld().isClientSide() && event.getChunk() instanceof LevelChunk) {
+            onChunkChanged(event.getWorld(), event.getChunk().getPos(), false);
+        }
+    }
+
+    @SubscribeEvent
+    public static void onWorldUnload(WorldEvent.Unload event) {
+        FLOPPERS.remove(event.getWorld());
+    }
+
+}
@@ -0,0 +1,117 @@
+package org.cyclops.flopper.blockentity;
+
+import com.google.common.collect.Sets;
+import it.unimi.dsi.fastutil.objects.Reference2IntLinkedOpenHashMap;
+import it.unimi.dsi.fastutil.objects.Reference2IntMap;
+import net.minecraftforge.event.TickEvent;
+import net.minecraftforge.event.server.ServerStoppedEvent;
+import net.minecraftforge.eventbus.api.SubscribeEvent;
+import org.cyclops.flopper.block.BlockFlopperConfig;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.Set;
+
+/**
+ * Server-wide budget of flopper transfer attempts per tick.
+ * Floppers that become ready when the budget is used up are deferred to the next tick,
+ * in which they are served first, in the order in which they were deferred.
+ * This makes sure that the floppers that happen to tick first can not use up the budget of every tick.
+ * @author rubensworks
+ */
+public final class FlopperScheduler {
+
+    private static final int DEFER_TICKS = 1;
+    /**
+     * The number of ticks a deferred flopper keeps its reserved operation if it does not tick in time.
+     */
+    private static final int MAX_RESERVED_TICKS = 4;
+
+    private static int remainingOperations = 0;
+    private static final Deque<BlockEntityFlopper> deferred = new ArrayDeque<>();
+    private static final Set<BlockEntityFlopper> deferredSet = Sets.newIdentityHashSet();
+    // Deferred floppers with an operation of the current tick, mapped to the number of ticks they have held it
+    private static final Reference2IntMap<BlockEntityFlopper> reserved = new Reference2IntLinkedOpenHashMap<>();
+
+    private FlopperScheduler() {
+
+    }
+
+    /**
+     * Take one operation from the budget of the current tick.
+     * If none is left, the flopper is deferred, and will have an operation reserved in a next tick.
+     * @param flopper The flopper that wants to do an operation.
+     * @return If the operation may be done in this tick.
+     */
+    public static boolean tryAcquire(BlockEntityFlopper flopper) {
+        if (BlockFlopperConfig.operationsPerTick <= 0) {
+            return true;
+        }
+        if (!reserved.isEmpty() && reserved.containsKey(flopper)) {
+            reserved.removeInt(flopper);
+            return true;
+        }
+        if (remainingOperations > 0) {
+            remainingOperations--;
+            // Entries in the queue of floppers that are no longer deferred are skipped
+            deferredSet.remove(flopper);
+            return true;
+        }
+        if (deferredSet.add(flopper)) {
+            deferred.add(flopper);
+        }
+        return false;
+    }
+
+    /**
+     * @return The number of ticks a flopper that could not acquire an operation should wait.
+     */
+    public static int getDeferTicks() {
+        return DEFER_TICKS;
+    }
+
+    @SubscribeEvent
+    public static void onServerTick(TickEvent.ServerTickEvent event) {
+        if (event.phase == TickEvent.Phase.START) {
+            int budget = BlockFlopperConfig.operationsPerTick;
+            if (budget <= 0) {
+                clear();
+                return;
+            }
+
+            // Floppers that did not use their reservation may have been delayed, so they keep it for a few ticks
+            Iterator<Reference2IntMap.Entry<BlockEntityFlopper>> it = reserved.reference2IntEntrySet().iterator();
+            while (it.hasNext()) {
+                Reference2IntMap.Entry<BlockEntityFlopper> entry = it.next();
+                if (entry.getKey().isRemoved() || entry.getIntValue() >= MAX_RESERVED_TICKS) {
+                    it.remove();
+                } else {
+                    entry.setValue(entry.getIntValue() + 1);
+                }
+            }
+
+            // Serve the floppers deferred in previous ticks first
+            while (reserved.size() < budget && !deferred.isEmpty()) {
+                BlockEntityFlopper flopper = deferred.poll();
+                if (deferredSet.remove(flopper) && !flopper.isRemoved()) {
+                    reserved.put(flopper, 1);
+                }
+            }
+            remainingOperations = Math.max(0, budget - reserved.size());
+        }
+    }
+
+    @SubscribeEvent
+    public static void onServerStopped(ServerStoppedEvent event) {
+        clear();
+    }
+
+    protected static void clear() {
+        remainingOperations = 0;
+        deferred.clear();
+        deferredSet.clear();
+        reserved.clear();
+    }
+
+}
@@ -0,0 +1,83 @@
+package org.cyclops.flopper.blockentity;
+
+import net.minecraftforge.event.TickEvent;
+import net.minecraftforge.eventbus.api.SubscribeEvent;
+import org.cyclops.flopper.Flopper;
+import org.cyclops.flopper.GeneralConfig;
+
+/**
+ * Global counters for the time that is spent ticking floppers.
+ * These are only collected in {@link GeneralConfig#debug} mode or while benchmarking,
+ * in which case a summary is logged every minute.
+ * @author rubensworks
+ */
+public final class FlopperTickCounter {
+
+    private static final int LOG_INTERVAL = 1200;
+
+    private static long tickNanos = 0;
+    private static long activeTicks = 0;
+    private static long sleepingTicks = 0;
+    private static int serverTicks = 0;
+    private static long totalTickNanos = 0;
+    private static boolean forceEnabled = false;
+
+    private FlopperTickCounter() {
+
+    }
+
+    public static boolean isEnabled() {
+        return GeneralConfig.debug || forceEnabled;
+    }
+
+    /**
+     * @param enabled If counters should be collected regardless of the debug mode.
+     */
+    public static void setForceEnabled(boolean enabled) {
+        forceEnabled = enabled;
+    }
+
+    /**
+     * @return The total time spent ticking floppers and scheduling them while collecting counters, which is never reset.
+     */
+    public static long getTotalTickNanos() {
+        return totalTickNanos;
+    }
+
+    /**
+     * Register the duration of a single flopper tick.
+     * @param sleeping If the flopper was sleeping.
+     * @param nanos The duration of the tick in nanoseconds.
+     */
+    public static void record(boolean sleeping, long nanos) {
+        tickNanos += nanos;
+        totalTickNanos += nanos;
+        if (sleeping) {
+            sleepingTicks++;
+        } else {
+            activeTicks++;
+        }
+    }
+
+    /**
+     * Register the time spent by a {@link FlopperTickManager} outside of the flopper ticks it has done.
+     * @param nanos The duration in nanoseconds.
+     */
+    public static void recordOverhead(long nanos) {
+        tickNanos += nanos;
+        totalTickNanos += nanos;
+    }
+
+    @SubscribeEvent
+    public static void onServerTick(TickEvent.ServerTickEvent event) {
+        if (event.phase == TickEvent.Phase.END && isEnabled() && ++serverTicks >= LOG_INTERVAL) {
+            Flopper.clog(String.format("Flopper ticks over the last %s server ticks: %s active, %s sleeping, %.3f ms total (%.3f ms/tick)",
+                    serverTicks, activeTicks, sleepingTicks, tickNanos / 1_000_000D, tickNanos / 1_000_000D / serverTicks));
+            tickNanos = 0;
+            activeTicks = 0;
+            sleepingTicks = 0;
+            serverTicks = 0;
+        }
+    }
+
+}
@@ -0,0 +1,160 @@
+package org.cyclops.flopper.blockentity;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+import net.minecraft.world.level.Level;
+import net.minecraftforge.event.TickEvent;
+import net.minecraftforge.event.world.WorldEvent;
+import net.minecraftforge.eventbus.api.SubscribeEvent;
+import net.minecraftforge.fml.LogicalSide;
+import org.cyclops.flopper.block.BlockFlopperConfig;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Ticks all floppers of a level from a single place, instead of giving each flopper its own ticker.
+ * Floppers are kept in a wheel of buckets keyed by the tick at which they are due,
+ * so that each tick only the floppers that are due have to be touched.
+ * @author rubensworks
+ */
+public class FlopperTickManager {
+
+    private static final int WHEEL_SIZE = 256;
+    private static final int WHEEL_MASK = WHEEL_SIZE - 1;
+    private static final int NOT_TICKING_RETRY_TICKS = 20;
+
+    private static final Map<Level, FlopperTickManager> MANAGERS = Maps.newIdentityHashMap();
+    private static final BlockEntityFlopper.Ticker TICKER = new BlockEntityFlopper.Ticker();
+
+    private final Level level;
+    private final List<BlockEntityFlopper>[] wheel;
+    private List<BlockEntityFlopper> spareBucket = Lists.newArrayList();
+    private long lastProcessedTick = -1;
+
+    @SuppressWarnings("unchecked")
+    protected FlopperTickManager(Level level) {
+        this.level = level;
+        this.wheel = new List[WHEEL_SIZE];
+        for (int i = 0; i < WHEEL_SIZE; i++) {
+            this.wheel[i] = Lists.newArrayList();
+        }
+    }
+
+    public static boolean isEnabled() {
+        return BlockFlopperConfig.centralTicking;
+    }
+
+    /**
+     * @param level A server level.
+     * @return The flopper tick manager of the given level.
+     */
+    public static FlopperTickManager get(Level level) {
+        return MANAGERS.computeIfAbsent(level, FlopperTickManager::new);
+    }
+
+    /**
+     * Schedule a flopper to be ticked after the given number of ticks.
+     * If the flopper is already scheduled earlier, nothing will happen.
+     * @param flopper A flopper.
+     * @param delay The number of ticks to wait, this will be clamped to the size of the wheel.
+     */
+    public void schedule(BlockEntityFlopper flopper, int delay) {
+        long tick = Math.max(level.getGameTime(), this.lastProcessedTick) + Math.max(1, Math.min(delay, WHEEL_SIZE - 1));
+        long scheduledTick = flopper.getScheduledTick();
+        if (scheduledTick > this.lastProcessedTick && scheduledTick <= tick) {
+            return;
+        }
+        // An entry for a previous later tick will be skipped as stale
+        flopper.setScheduledTick(tick);
+        this.wheel[(int) (tick & WHEEL_MASK)].add(flopper);
+    }
+
+    protected void tick() {
+        boolean counting = FlopperTickCounter.isEnabled();
+        long startTime = counting ? System.nanoTime() : 0;
+        long startTickNanos = counting ? FlopperTickCounter.getTotalTickNanos() : 0;
+        long now = level.getGameTime();
+        // After a gap larger than the wheel, one pass over all buckets handles everything that became due
+        long tick = this.lastProcessedTick < 0 ? now : Math.max(this.lastProcessedTick + 1, now - WHEEL_MASK);
+        if (FlopperTransferPlanner.isEnabled()) {
+            // All floppers of this tick are planned at once, so that planning waits for its threads only once per tick
+            FlopperTransferPlanner.plan(level, getDue(tick, now));
+        }
+        for (; tick <= now; tick++) {
+            this.lastProcessedTick = tick;
+            processBucket(tick);
+        }
+        if (counting) {
+            // The flopper ticks themselves have already been counted
+            FlopperTickCounter.recordOverhead(System.nanoTime() - startTime - (FlopperTickCounter.getTotalTickNanos() - startTickNanos));
+        }
+    }
+
+    /**
+     * @param fromTick The first tick.
+     * @param toTick The last tick.
+     * @return The floppers that are due within the given ticks, in the order in which they will be ticked.
+     */
+    protected List<BlockEntityFlopper> getDue(long fromTick, long toTick) {
+        List<BlockEntityFlopper> due = Lists.newArrayList();
+        Set<BlockEntityFlopper> seen = Sets.newIdentityHashSet();
+        for (long tick = fromTick; tick <= toTick; tick++) {
+            for (BlockEntityFlopper flopper : this.wheel[(int) (tick & WHEEL_MASK)]) {
+                if (!flopper.isRemoved() && flopper.getScheduledTick() == tick && seen.add(flopper)) {
+                    due.add(flopper);
+                }
+            }
+        }
+        return due;
+    }
+
+    protected void processBucket(long tick) {
+        int index = (int) (tick & WHEEL_MASK);
+        List<BlockEntityFlopper> bucket = this.wheel[index];
+        if (bucket.isEmpty()) {
+            return;
+        }
+        this.wheel[index] = this.spareBucket;
+
+        for (BlockEntityFlopper flopper : bucket) {
+            long scheduledTick = flopper.getScheduledTick();
+            if (flopper.isRemoved() || scheduledTick < 0 || scheduledTick > tick || (scheduledTick & WHEEL_MASK) != index) {
+                continue;
+            }
+            flopper.setScheduledTick(-1);
+            if (!level.shouldTickBlocksAt(flopper.getBlockPos())) {
+                flopper.setTransferPlan(null);
+                schedule(flopper, NOT_TICKING_RETRY_TICKS);
+                continue;
+            }
+            TICKER.tick(level, flopper.getBlockPos(), flopper.getBlockState(), flopper);
+            // Plans that were not used in this tick are outdated
+            flopper.setTransferPlan(null);
+            if (!flopper.isRemoved()) {
+                schedule(flopper, flopper.getNextTickDelay());
+            }
+        }
+
+        bucket.clear();
+        this.spareBucket = bucket;
+    }
+
+    @SubscribeEvent
+    public static void onWorldTick(TickEvent.WorldTickEvent event) {
+        if (event.phase == TickEvent.Phase.END && event.side == LogicalSide.SERVER) {
+            FlopperTickManager manager = MANAGERS.get(event.world);
+            if (manager != null) {
+                manager.tick();
+            }
+        }
+    }
+
+    @SubscribeEvent
+    public static void onWorldUnload(WorldEvent.Unload event) {
+        MANAGERS.remove(event.getWorld());
+    }
+
+}
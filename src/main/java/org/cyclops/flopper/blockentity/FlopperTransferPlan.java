@@ -0,0 +1,155 @@
+package org.cyclops.flopper.blockentity;
+
+import net.minecraftforge.fluids.FluidStack;
+import net.minecraftforge.fluids.capability.templates.FluidTank;
+
+import javax.annotation.Nullable;
+
+/**
+ * A planned transfer of a flopper between tanks with known behaviour.
+ * Plans are created from snapshots on the server thread, calculated on any thread,
+ * and applied on the server thread only if the tanks still hold what the plan expects.
+ * @author rubensworks
+ */
+public class FlopperTransferPlan {
+
+    private final BlockEntityFlopper flopper;
+    private final FluidTank target;
+    @Nullable
+    private final FluidTank source;
+
+    private final FlopperTransferPlanner.TankSnapshot ownSnapshot;
+    private final FlopperTransferPlanner.TankSnapshot targetSnapshot;
+    @Nullable
+    private final FlopperTransferPlanner.TankSnapshot sourceSnapshot;
+    // Validity checks of the tanks can only be done on the server thread, so they are done for the fluids of the snapshot
+    private final FluidStack ownFluid;
+    private final boolean targetAcceptsOwnFluid;
+    private final FluidStack sourceFluid;
+    private final boolean ownAcceptsSourceFluid;
+
+    private FluidStack expectedOwnFluid = FluidStack.EMPTY;
+    private int expectedOwnAmount = 0;
+    private FluidStack expectedTargetFluid = FluidStack.EMPTY;
+    private int expectedTargetAmount = 0;
+    private FluidStack expectedSourceFluid = FluidStack.EMPTY;
+    private int expectedSourceAmount = 0;
+    private int plannedPush = 0;
+    private int plannedPull = 0;
+
+    /**
+     * Create a plan, must be called on the server thread.
+     * @param flopper The flopper.
+     * @param target The tank the flopper pushes into.
+     * @param source The tank the flopper pulls from, or null.
+     * @param ownSnapshot The snapshot of the tank of the flopper.
+     * @param targetSnapshot The snapshot of the target tank.
+     * @param sourceSnapshot The snapshot of the source tank, or null.
+     */
+    public FlopperTransferPlan(BlockEntityFlopper flopper, FluidTank target, @Nullable FluidTank source,
+                               FlopperTransferPlanner.TankSnapshot ownSnapshot,
+                               FlopperTransferPlanner.TankSnapshot targetSnapshot,
+                               @Nullable FlopperTransferPlanner.TankSnapshot sourceSnapshot) {
+        this.flopper = flopper;
+        this.target = target;
+        this.source = source;
+        this.ownSnapshot = ownSnapshot;
+        this.targetSnapshot = targetSnapshot;
+        this.sourceSnapshot = sourceSnapshot;
+        this.ownFluid = ownSnapshot.fluid;
+        this.targetAcceptsOwnFluid = !this.ownFluid.isEmpty() && target.isFluidValid(this.ownFluid);
+        this.sourceFluid = sourceSnapshot != null ? sourceSnapshot.fluid : FluidStack.EMPTY;
+        this.ownAcceptsSourceFluid = !this.sourceFluid.isEmpty() && flopper.getTank().isFluidValid(this.sourceFluid);
+    }
+
+    public BlockEntityFlopper getFlopper() {
+        return flopper;
+    }
+
+    /**
+     * Calculate the amounts to push and pull based on the snapshots, and update the snapshots accordingly.
+     * Plans sharing snapshots must be calculated in the order in which they will be applied.
+     * This may be called from any thread.
+     * @param pushRate The maximum amount to push.
+     * @param pullRate The maximum amount to pull.
+     */
+    public void calculate(int pushRate, int pullRate) {
+        FlopperTransferPlanner.TankSnapshot own = this.ownSnapshot;
+        FlopperTransferPlanner.TankSnapshot target = this.targetSnapshot;
+        FlopperTransferPlanner.TankSnapshot source = this.sourceSnapshot;
+        this.expectedOwnFluid = own.fluid;
+        this.expectedOwnAmount = own.amount;
+        this.expectedTargetFluid = target.fluid;
+        this.expectedTargetAmount = target.amount;
+        if (source != null) {
+            this.expectedSourceFluid = source.fluid;
+            this.expectedSourceAmount = source.amount;
+        }
+
+        // Fluids that were not checked are assumed to be valid, the actual tanks have the final say
+        if (own.amount > 0 && (target.amount == 0 || target.fluid.isFluidEqual(own.fluid))
+                && (own.fluid != this.ownFluid || this.targetAcceptsOwnFluid)) {
+            this.plannedPush = Math.min(pushRate, Math.min(own.amount, target.capacity - target.amount));
+            if (this.plannedPush > 0) {
+                target.fluid = own.fluid;
+                target.amount += this.plannedPush;
+                own.amount -= this.plannedPush;
+            }
+        }
+        if (source != null && source.amount > 0 && (own.amount == 0 || own.fluid.isFluidEqual(source.fluid))
+                && (source.fluid != this.sourceFluid || this.ownAcceptsSourceFluid)) {
+            this.plannedPull = Math.min(pullRate, Math.min(source.amount, own.capacity - own.amount));
+            if (this.plannedPull > 0) {
+                own.fluid = source.fluid;
+                own.amount += this.plannedPull;
+                source.amount -= this.plannedPull;
+            }
+        }
+    }
+
+    /**
+     * Must be called on the server thread.
+     * @return If the flopper still transfers between the same tanks, and these still hold what this plan expects.
+     */
+    public boolean isValid() {
+        return !this.flopper.isRemoved()
+                && this.flopper.getTargetHandler() == this.target
+                && this.flopper.getSourceHandler() == this.source
+                && holds(this.flopper.getTank(), this.expectedOwnFluid, this.expectedOwnAmount)
+                && holds(this.target, this.expectedTargetFluid, this.expectedTargetAmount)
+                && (this.source == null || holds(this.source, this.expectedSourceFluid, this.expectedSourceAmount));
+    }
+
+    protected static boolean holds(FluidTank tank, FluidStack fluid, int amount) {
+        FluidStack contents = tank.getFluid();
+        if (amount <= 0) {
+            return contents.isEmpty();
+        }
+        return contents.getAmount() == amount && contents.isFluidEqual(fluid);
+    }
+
+    /**
+     * Apply this plan, must be called on the server thread.
+     * The planned amounts are an upper bound, the actual tanks decide how much is moved.
+     * @return If some fluid was moved.
+     */
+    public boolean apply() {
+        boolean worked = false;
+        if (this.plannedPush > 0) {
+            int moved = FlopperTransfers.move(this.flopper.getTank(), this.target, this.plannedPush);
+            if (moved > 0) {
+                this.flopper.recordMoved(moved);
+                worked = true;
+            }
+        }
+        if (this.plannedPull > 0 && this.source != null) {
+            int moved = FlopperTransfers.move(this.source, this.flopper.getTank(), this.plannedPull);
+            if (moved > 0) {
+                this.flopper.recordMoved(moved);
+                worked = true;
+            }
+        }
+        return worked;
+    }
+
+}
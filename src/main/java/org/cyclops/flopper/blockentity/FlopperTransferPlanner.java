@@ -0,0 +1,180 @@
+package org.cyclops.flopper.blockentity;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import it.unimi.dsi.fastutil.longs.Long2ObjectLinkedOpenHashMap;
+import it.unimi.dsi.fastutil.longs.Long2ObjectMap;
+import net.minecraft.core.BlockPos;
+import net.minecraft.core.Direction;
+import net.minecraft.world.level.ChunkPos;
+import net.minecraft.world.level.Level;
+import net.minecraftforge.fluids.FluidStack;
+import net.minecraftforge.fluids.capability.IFluidHandler;
+import net.minecraftforge.fluids.capability.templates.FluidTank;
+import org.cyclops.cyclopscore.helper.BlockHelpers;
+import org.cyclops.flopper.Flopper;
+import org.cyclops.flopper.block.BlockFlopper;
+import org.cyclops.flopper.block.BlockFlopperConfig;
+
+import javax.annotation.Nullable;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+/**
+ * Plans the transfers of many floppers in parallel.
+ * Only floppers that exclusively transfer between tanks with known behaviour are planned,
+ * all others do their transfers as usual.
+ *
+ * The tanks are snapshot on the server thread, where the neighbour handlers are also looked up.
+ * The floppers are then grouped by region of chunks, and the transfers within each region are
+ * calculated in tick order by a single fork-join task, so that fluid moving between floppers of a region is accounted for.
+ * Each flopper validates its plan against the actual tanks when it ticks, and does its usual transfers if the plan is outdated.
+ * @author rubensworks
+ */
+public final class FlopperTransferPlanner {
+
+    /**
+     * Regions of 4 by 4 chunks.
+     */
+    private static final int REGION_SHIFT = 6;
+
+    @Nullable
+    private static ForkJoinPool pool = null;
+
+    private FlopperTransferPlanner() {
+
+    }
+
+    public static boolean isEnabled() {
+        return BlockFlopperConfig.parallelPlanning;
+    }
+
+    /**
+     * Plan the transfers of the given floppers, and assign the plans to them.
+     * Must be called on the server thread.
+     * @param level The level.
+     * @param floppers The floppers that are due in this tick, in the order in which they will tick.
+     */
+    public static void plan(Level level, List<BlockEntityFlopper> floppers) {
+        if (floppers.size() < BlockFlopperConfig.parallelPlanningThreshold) {
+            return;
+        }
+
+        Long2ObjectMap<Region> regions = new Long2ObjectLinkedOpenHashMap<>();
+        int planned = 0;
+        for (BlockEntityFlopper flopper : floppers) {
+            if (createPlan(level, flopper, regions)) {
+                planned++;
+            }
+        }
+        if (planned < BlockFlopperConfig.parallelPlanningThreshold) {
+            return;
+        }
+
+        int pushRate = BlockFlopperConfig.pushFluidRate;
+        int pullRate = BlockFlopperConfig.pullFluidRate;
+        List<ForkJoinTask<?>> tasks = Lists.newArrayListWithExpectedSize(regions.size());
+        for (Region region : regions.values()) {
+            tasks.add(getPool().submit(() -> region.calculate(pushRate, pullRate)));
+        }
+        try {
+            for (ForkJoinTask<?> task : tasks) {
+                task.join();
+            }
+        } catch (RuntimeException e) {
+            Flopper.clog(org.apache.logging.log4j.Level.ERROR, "Could not plan flopper transfers: " + e.getMessage());
+            return;
+        }
+
+        for (Region region : regions.values()) {
+            for (FlopperTransferPlan plan : region.plans) {
+                plan.getFlopper().setTransferPlan(plan);
+            }
+        }
+    }
+
+    /**
+     * Create a plan for the given flopper in its region, if it only transfers between tanks with known behaviour.
+     * @param level The level.
+     * @param flopper A flopper.
+     * @param regions The regions.
+     * @return If a plan was created.
+     */
+    protected static boolean createPlan(Level level, BlockEntityFlopper flopper, Long2ObjectMap<Region> regions) {
+        BlockPos pos = flopper.getBlockPos();
+        if (flopper.isRemoved() || flopper.isSleeping() || flopper.isDistributor()
+                || !BlockHelpers.getSafeBlockStateProperty(flopper.getBlockState(), BlockFlopper.ENABLED, false)
+                || !level.shouldTickBlocksAt(pos)
+                || (BlockFlopperConfig.chainTransfers && flopper.getChain() != null)) {
+            return false;
+        }
+        IFluidHandler target = flopper.getTargetHandler();
+        if (target == null || !FlopperTransfers.isKnownTank(target)) {
+            return false;
+        }
+        IFluidHandler source = flopper.getSourceHandler();
+        if (source == null) {
+            // Pulling from the world is not planned
+            if (BlockFlopperConfig.pullFluidsWorld && !level.getFluidState(pos.relative(Direction.UP)).isEmpty()) {
+                return false;
+            }
+        } else if (!FlopperTransfers.isKnownTank(source)) {
+            return false;
+        }
+
+        Region region = regions.computeIfAbsent(ChunkPos.asLong(pos.getX() >> REGION_SHIFT, pos.getZ() >> REGION_SHIFT), key -> new Region());
+        region.plans.add(new FlopperTransferPlan(flopper, (FluidTank) target, (FluidTank) source,
+                region.getSnapshot(flopper.getTank()),
+                region.getSnapshot((FluidTank) target),
+                source != null ? region.getSnapshot((FluidTank) source) : null));
+        return true;
+    }
+
+    protected static ForkJoinPool getPool() {
+        if (pool == null) {
+            pool = new ForkJoinPool(Math.max(1, Runtime.getRuntime().availableProcessors() - 1));
+        }
+        return pool;
+    }
+
+    /**
+     * The plans of all floppers within a region, with a single snapshot per tank.
+     */
+    protected static class Region {
+
+        private final Map<FluidTank, TankSnapshot> snapshots = Maps.newIdentityHashMap();
+        private final List<FlopperTransferPlan> plans = Lists.newArrayList();
+
+        protected TankSnapshot getSnapshot(FluidTank tank) {
+            return snapshots.computeIfAbsent(tank, TankSnapshot::new);
+        }
+
+        protected void calculate(int pushRate, int pullRate) {
+            for (FlopperTransferPlan plan : plans) {
+                plan.calculate(pushRate, pullRate);
+            }
+        }
+
+    }
+
+    /**
+     * The contents of a tank as planned so far.
+     * The fluid is only used for its type, its amount is kept separately so that planning does not create stacks.
+     */
+    public static class TankSnapshot {
+
+        protected final int capacity;
+        protected FluidStack fluid;
+        protected int amount;
+
+        public TankSnapshot(FluidTank tank) {
+            this.capacity = tank.getCapacity();
+            this.fluid = tank.getFluid().copy();
+            this.amount = this.fluid.getAmount();
+        }
+
+    }
+
+}
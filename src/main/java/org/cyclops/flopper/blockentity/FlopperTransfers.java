@@ -0,0 +1,111 @@
+package org.cyclops.flopper.blockentity;
+
+import net.minecraft.core.BlockPos;
+import net.minecraft.world.level.Level;
+import net.minecraft.world.level.block.Block;
+import net.minecraft.world.level.block.state.BlockState;
+import net.minecraft.world.level.material.Fluid;
+import net.minecraft.world.level.material.FluidState;
+import net.minecraftforge.fluids.FluidStack;
+import net.minecraftforge.fluids.FluidUtil;
+import net.minecraftforge.fluids.capability.IFluidHandler;
+import net.minecraftforge.fluids.capability.templates.FluidTank;
+import org.cyclops.cyclopscore.fluid.SingleUseTank;
+import org.cyclops.cyclopscore.fluid.Tank;
+import org.cyclops.cyclopscore.helper.FluidHelpers;
+
+import javax.annotation.Nullable;
+
+/**
+ * The fluid transfer operations floppers are built on.
+ * These are shared by the transfers of single floppers and the hops of flopper chains.
+ * @author rubensworks
+ */
+public final class FlopperTransfers {
+
+    private FlopperTransfers() {
+
+    }
+
+    /**
+     * Transfer fluid between two fluid handlers.
+     * Transfers between tanks with known behaviour, such as our own tanks, are done directly,
+     * all other handlers go through a generic simulate-then-execute transfer,
+     * as subclasses of those tanks may behave differently.
+     * @param destination The destination handler.
+     * @param source The source handler.
+     * @param maxAmount The maximum amount to transfer.
+     * @return The transferred amount.
+     */
+    public static int transfer(IFluidHandler destination, IFluidHandler source, int maxAmount) {
+        if (isKnownTank(destination) && isKnownTank(source)) {
+            return move((FluidTank) source, (FluidTank) destination, maxAmount);
+        }
+        return FluidUtil.tryFluidTransfer(destination, source, maxAmount, true).getAmount();
+    }
+
+    /**
+     * @param fluidHandler A fluid handler.
+     * @return If the handler is exactly one of the tanks of which the fill and drain behaviour is known.
+     */
+    protected static boolean isKnownTank(IFluidHandler fluidHandler) {
+        Class<?> clazz = fluidHandler.getClass();
+        return clazz == BlockEntityFlopper.FlopperTank.class || clazz == SingleUseTank.class || clazz == Tank.class;
+    }
+
+    /**
+     * Move fluid between two tanks directly, without the simulate-then-execute copies of a generic transfer.
+     * @param from The source tank.
+     * @param to The destination tank.
+     * @param maxAmount The maximum amount to move.
+     * @return The moved amount.
+     */
+    public static int move(FluidTank from, FluidTank to, int maxAmount) {
+        FluidStack fluid = from.getFluid();
+        if (fluid.isEmpty()) {
+            return 0;
+        }
+        int amount = Math.min(maxAmount, to.fill(fluid, IFluidHandler.FluidAction.SIMULATE));
+        if (amount <= 0) {
+            return 0;
+        }
+        return to.fill(from.drain(amount, IFluidHandler.FluidAction.EXECUTE), IFluidHandler.FluidAction.EXECUTE);
+    }
+
+    /**
+     * Get the block state for placing the given fluid in the world.
+     * @param fluid The fluid.
+     * @param level The level.
+     * @param pos The target position.
+     * @return The block state, or null if the fluid can not be placed.
+     */
+    @Nullable
+    public static BlockState getPlacementState(Fluid fluid, Level level, BlockPos pos) {
+        FluidState fluidState = fluid.defaultFluidState();
+        if (!fluid.getAttributes().canBePlacedInWorld(level, pos, fluidState)) {
+            return null;
+        }
+        return fluid.getAttributes().getBlock(level, pos, fluidState);
+    }
+
+    /**
+     * Place a bucket of fluid from the given tank into the world.
+     * This does the same as a transfer into a {@link net.minecraftforge.fluids.capability.wrappers.BlockWrapper},
+     * without creating the wrapper and the intermediary fluid copies.
+     * @param tank The source tank.
+     * @param fluidBlockState The block state of the fluid to place.
+     * @param level The level.
+     * @param pos The target position.
+     * @return If the fluid was placed.
+     */
+    public static boolean place(FluidTank tank, BlockState fluidBlockState, Level level, BlockPos pos) {
+        if (tank.getFluidAmount() < FluidHelpers.BUCKET_VOLUME) {
+            return false;
+        }
+        FluidUtil.destroyBlockOnFluidPlacement(level, pos);
+        level.setBlock(pos, fluidBlockState, Block.UPDATE_ALL_IMMEDIATE);
+        tank.drain(FluidHelpers.BUCKET_VOLUME, IFluidHandler.FluidAction.EXECUTE);
+        return true;
+    }
+
+}
@@ -0,0 +1,199 @@
+package org.cyclops.flopper.blockentity;
+
+import com.google.common.collect.Lists;
+import it.unimi.dsi.fastutil.longs.LongOpenHashSet;
+import it.unimi.dsi.fastutil.longs.LongSet;
+import net.minecraft.core.BlockPos;
+import net.minecraft.core.Direction;
+import net.minecraft.core.SectionPos;
+import net.minecraft.resources.ResourceLocation;
+import net.minecraft.world.level.Level;
+import net.minecraft.world.level.block.Block;
+import net.minecraft.world.level.block.Blocks;
+import net.minecraft.world.level.block.SimpleWaterloggedBlock;
+import net.minecraft.world.level.block.state.BlockState;
+import net.minecraft.world.level.block.state.properties.BlockStateProperties;
+import net.minecraft.world.level.material.Fluid;
+import net.minecraft.world.level.material.FluidState;
+import net.minecraft.world.level.material.Material;
+import net.minecraftforge.registries.ForgeRegistries;
+
+import javax.annotation.Nullable;
+import java.util.ArrayDeque;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.List;
+
+/**
+ * A batch of fluid block changes in the world.
+ * Blocks are changed without notifying their neighbours, which is done once for the whole batch when it is finished,
+ * only for the neighbours at the boundary of the batch, and grouped per chunk section.
+ * Client synchronization of the changes is already grouped per chunk section by the chunk map.
+ * @author rubensworks
+ */
+public class FlopperWorldBatch {
+
+    private final Level level;
+    private final LongSet changed = new LongOpenHashSet();
+    private final List<BlockPos> changedPositions = Lists.newArrayList();
+
+    public FlopperWorldBatch(Level level) {
+        this.level = level;
+    }
+
+    /**
+     * Change a block as part of this batch.
+     * @param pos The position.
+     * @param state The new block state.
+     * @return If the block was changed.
+     */
+    public boolean setBlock(BlockPos pos, BlockState state) {
+        if (level.setBlock(pos, state, Block.UPDATE_CLIENTS)) {
+            BlockPos immutablePos = pos.immutable();
+            changed.add(immutablePos.asLong());
+            changedPositions.add(immutablePos);
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * @return The number of changed blocks.
+     */
+    public int size() {
+        return changedPositions.size();
+    }
+
+    /**
+     * Notify all neighbours around this batch that are not part of it.
+     */
+    public void finish() {
+        changedPositions.sort(Comparator.comparingLong(SectionPos::asLong));
+        LongSet notified = new LongOpenHashSet();
+        BlockPos.MutableBlockPos neighbourPos = new BlockPos.MutableBlockPos();
+        for (BlockPos pos : changedPositions) {
+            Block block = level.getBlockState(pos).getBlock();
+            for (Direction side : Direction.values()) {
+                neighbourPos.setWithOffset(pos, side);
+                long neighbour = neighbourPos.asLong();
+                if (!changed.contains(neighbour) && notified.add(neighbour)) {
+                    level.neighborChanged(neighbourPos.immutable(), block, pos);
+                }
+            }
+        }
+    }
+
+    /**
+     * Only vanilla blocks are supported, as other blocks may do more than changing their state when they are picked up.
+     * @param state A block state.
+     * @param fluid A fluid.
+     * @return The block state after draining the source block of the given fluid,
+     *         or null if it is not such a source of a vanilla block.
+     */
+    @Nullable
+    public static BlockState getDrainedState(BlockState state, Fluid fluid) {
+        FluidState fluidState = state.getFluidState();
+        if (!fluidState.isSource() || !fluidState.getType().isSame(fluid)) {
+            return null;
+        }
+        Block block = state.getBlock();
+        if (block == Blocks.WATER || block == Blocks.LAVA) {
+            return Blocks.AIR.defaultBlockState();
+        }
+        if (block instanceof SimpleWaterloggedBlock && isVanilla(block) && state.hasProperty(BlockStateProperties.WATERLOGGED)) {
+            return state.setValue(BlockStateProperties.WATERLOGGED, false);
+        }
+        return null;
+    }
+
+    protected static boolean isVanilla(Block block) {
+        ResourceLocation id = ForgeRegistries.BLOCKS.getKey(block);
+        return id != null && id.getNamespace().equals("minecraft");
+    }
+
+    /**
+     * @param level The level.
+     * @param pos A position.
+     * @return If fluids may be placed at the given position, replacing the block that is there.
+     */
+    public static boolean canPlaceAt(Level level, BlockPos pos) {
+        BlockState blockState = level.getBlockState(pos);
+        Material material = blockState.getMaterial();
+        return blockState.isAir() || (!material.isSolid() && material.isReplaceable() && !material.isLiquid());
+    }
+
+    /**
+     * Find the positions where fluids can be placed, starting from the start position
+     * and spreading horizontally and downwards.
+     * @param level The level.
+     * @param start The start position.
+     * @param radius The maximum distance along each axis from the start position.
+     * @param maxBlocks The maximum number of positions to find.
+     * @return The found positions, ordered by distance from the start.
+     */
+    public static List<BlockPos> collectPlacements(Level level, BlockPos start, int radius, int maxBlocks) {
+        List<BlockPos> placements = Lists.newArrayList();
+        LongSet visited = new LongOpenHashSet();
+        Deque<BlockPos> queue = new ArrayDeque<>();
+        visited.add(start.asLong());
+        queue.add(start);
+        while (!queue.isEmpty() && placements.size() < maxBlocks) {
+            BlockPos pos = queue.poll();
+            if (!canPlaceAt(level, pos)) {
+                continue;
+            }
+            placements.add(pos);
+            for (Direction side : Direction.values()) {
+                BlockPos neighbour = pos.relative(side);
+                if (side != Direction.UP
+                        && Math.abs(neighbour.getX() - start.getX()) <= radius
+                        && Math.abs(neighbour.getY() - start.getY()) <= radius
+                        && Math.abs(neighbour.getZ() - start.getZ()) <= radius
+                        && visited.add(neighbour.asLong())
+                        && level.isLoaded(neighbour)) {
+                    queue.add(neighbour);
+                }
+            }
+        }
+        return placements;
+    }
+
+    /**
+     * Find the source blocks of the given fluid that are connected to the start position,
+     * spreading horizontally and upwards.
+     * @param level The level.
+     * @param start The start position.
+     * @param fluid The fluid.
+     * @param radius The maximum distance along each axis from the start position.
+     * @param maxBlocks The maximum number of blocks to find.
+     * @return The found positions, ordered by distance from the start.
+     */
+    public static List<BlockPos> collectSources(Level level, BlockPos start, Fluid fluid, int radius, int maxBlocks) {
+        List<BlockPos> sources = Lists.newArrayList();
+        LongSet visited = new LongOpenHashSet();
+        Deque<BlockPos> queue = new ArrayDeque<>();
+        visited.add(start.asLong());
+        queue.add(start);
+        while (!queue.isEmpty() && sources.size() < maxBlocks) {
+            BlockPos pos = queue.poll();
+            if (getDrainedState(level.getBlockState(pos), fluid) == null) {
+                continue;
+            }
+            sources.add(pos);
+            for (Direction side : Direction.values()) {
+                BlockPos neighbour = pos.relative(side);
+                // Sources below the start may be below the flopper itself
+                if (side != Direction.DOWN
+                        && Math.abs(neighbour.getX() - start.getX()) <= radius
+                        && neighbour.getY() - start.getY() <= radius
+                        && Math.abs(neighbour.getZ() - start.getZ()) <= radius
+                        && visited.add(neighbour.asLong())
+                        && level.isLoaded(neighbour)) {
+                    queue.add(neighbour);
+                }
+            }
+        }
+        return sources;
+    }
+
+}
@@ -22,11 +22,21 @@ import javax.annotation.Nonnull;
  */
 public class FluidHandlerBlock implements IFluidHandler {
 
-    private final BlockState state;
-    private final Level world;
-    private final BlockPos blockPos;
+    private BlockState state;
+    private Level world;
+    private BlockPos blockPos;
 
     public FluidHandlerBlock(BlockState state, Level world, BlockPos blockPos) {
+        setTarget(state, world, blockPos);
+    }
+
+    /**
+     * Point this handler to another block, so that instances can be reused.
+     * @param state The block state.
+     * @param world The world.
+     * @param blockPos The position.
+     */
+    public void setTarget(BlockState state, Level world, BlockPos blockPos) {
         this.state = state;
         this.world = world;
         this.blockPos = blockPos;
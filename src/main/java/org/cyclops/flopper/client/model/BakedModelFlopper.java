@@ -0,0 +1,112 @@
+package org.cyclops.flopper.client.model;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import net.minecraft.client.renderer.RenderType;
+import net.minecraft.client.renderer.block.model.BakedQuad;
+import net.minecraft.client.renderer.texture.TextureAtlasSprite;
+import net.minecraft.client.resources.model.BakedModel;
+import net.minecraft.core.Direction;
+import net.minecraft.util.RandomSource;
+import net.minecraft.world.level.block.state.BlockState;
+import net.minecraft.world.level.material.Fluid;
+import net.minecraftforge.client.MinecraftForgeClient;
+import net.minecraftforge.client.model.BakedModelWrapper;
+import net.minecraftforge.client.model.data.IModelData;
+import net.minecraftforge.fluids.FluidStack;
+import org.cyclops.cyclopscore.helper.FluidHelpers;
+import org.cyclops.cyclopscore.helper.RenderHelpers;
+import org.cyclops.flopper.blockentity.BlockEntityFlopper;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Flopper model that includes the surface of the contained fluid as a baked quad,
+ * so that it becomes part of the chunk mesh.
+ * @author rubensworks
+ */
+public class BakedModelFlopper extends BakedModelWrapper<BakedModel> {
+
+    private final Map<FluidKey, List<BakedQuad>> fluidQuads = Maps.newConcurrentMap();
+
+    public BakedModelFlopper(BakedModel originalModel) {
+        super(originalModel);
+    }
+
+    @Nonnull
+    @Override
+    public List<BakedQuad> getQuads(@Nullable BlockState state, @Nullable Direction side, @Nonnull RandomSource rand, @Nonnull IModelData extraData) {
+        RenderType renderType = MinecraftForgeClient.getRenderType();
+        if (renderType == RenderType.translucent()) {
+            Fluid fluid = extraData.getData(BlockEntityFlopper.MODEL_FLUID);
+            Integer level = extraData.getData(BlockEntityFlopper.MODEL_FLUID_LEVEL);
+            Integer color = extraData.getData(BlockEntityFlopper.MODEL_FLUID_COLOR);
+            if (side != null || fluid == null || level == null || color == null) {
+                return ImmutableList.of();
+            }
+            return fluidQuads.computeIfAbsent(new FluidKey(fluid, level, color), BakedModelFlopper::bakeFluidQuads);
+        }
+        return super.getQuads(state, side, rand, extraData);
+    }
+
+    protected static List<BakedQuad> bakeFluidQuads(FluidKey key) {
+        TextureAtlasSprite icon = RenderHelpers.getFluidIcon(new FluidStack(key.fluid, FluidHelpers.BUCKET_VOLUME), Direction.UP);
+        float height = (key.level * 0.3125F) / BlockEntityFlopper.MODEL_FLUID_LEVELS + 0.6875F;
+        // Vertex data is stored as ABGR
+        int color = 0xFF000000 | (key.color & 0xFF) << 16 | (key.color & 0xFF00) | (key.color >> 16 & 0xFF);
+        int[] vertexData = new int[32];
+        putVertex(vertexData, 0, 0.125F, height, 0.125F, color, icon.getU0(), icon.getV1());
+        putVertex(vertexData, 1, 0.125F, height, 0.875F, color, icon.getU0(), icon.getV0());
+        putVertex(vertexData, 2, 0.875F, height, 0.875F, color, icon.getU1(), icon.getV0());
+        putVertex(vertexData, 3, 0.875F, height, 0.125F, color, icon.getU1(), icon.getV1());
+        return Lists.newArrayList(new BakedQuad(vertexData, -1, Direction.UP, icon, false));
+    }
+
+    /**
+     * Write a vertex in the block vertex format: position, color, texture, lightmap and normal.
+     */
+    protected static void putVertex(int[] vertexData, int vertex, float x, float y, float z, int color, float u, float v) {
+        int offset = vertex * 8;
+        vertexData[offset] = Float.floatToRawIntBits(x);
+        vertexData[offset + 1] = Float.floatToRawIntBits(y);
+        vertexData[offset + 2] = Float.floatToRawIntBits(z);
+        vertexData[offset + 3] = color;
+        vertexData[offset + 4] = Float.floatToRawIntBits(u);
+        vertexData[offset + 5] = Float.floatToRawIntBits(v);
+        vertexData[offset + 6] = 0;
+        vertexData[offset + 7] = 0x7F00; // Normal pointing up
+    }
+
+    protected static class FluidKey {
+
+        private final Fluid fluid;
+        private final int level;
+        private final int color;
+
+        public FluidKey(Fluid fluid, int level, int color) {
+            this.fluid = fluid;
+            this.level = level;
+            this.color = color;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (!(obj instanceof FluidKey)) {
+                return false;
+            }
+            FluidKey that = (FluidKey) obj;
+            return this.fluid == that.fluid && this.level == that.level && this.color == that.color;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(fluid, level, color);
+        }
+    }
+
+}
@@ -10,9 +10,8 @@ import net.minecraft.client.renderer.blockentity.BlockEntityRendererProvider;
 import net.minecraft.client.renderer.texture.TextureAtlasSprite;
 import net.minecraft.core.Direction;
 import net.minecraftforge.fluids.FluidStack;
-import org.apache.commons.lang3.tuple.Triple;
-import org.cyclops.cyclopscore.helper.Helpers;
 import org.cyclops.cyclopscore.helper.RenderHelpers;
+import org.cyclops.flopper.block.BlockFlopperConfig;
 import org.cyclops.flopper.blockentity.BlockEntityFlopper;
 
 /**
@@ -29,25 +28,68 @@ public class RenderBlockEntityFlopper implements BlockEntityRenderer<BlockEntity
 
     @Override
     public void render(BlockEntityFlopper tile, float partialTicks, PoseStack matrixStack, MultiBufferSource buffer, int combinedLight, int combinedOverlay) {
-        if(tile != null) {
+        if(tile != null && BlockFlopperConfig.renderFluid && !BlockFlopperConfig.renderFluidStatic && !tile.getTank().isEmpty()) {
+            FluidRenderCache cache = getRenderCache(tile);
+            int brightness = Math.max(combinedLight, cache.luminosity);
+            int l2 = brightness >> 0x10 & 0xFFFF;
+            int i3 = brightness & 0xFFFF;
+
+            // The quad is emitted into a buffer that is drawn later on,
+            // so no render state or pose has to be set around it.
+            TextureAtlasSprite icon = cache.icon;
+            float height = cache.height;
+            VertexConsumer vb = buffer.getBuffer(cache.renderType);
+            Matrix4f matrix = matrixStack.last().pose();
+            vb.vertex(matrix, 0.125F, height, 0.125F).color(cache.red, cache.green, cache.blue, 1).uv(icon.getU0(), icon.getV1()).uv2(l2, i3).endVertex();
+            vb.vertex(matrix, 0.125F, height, 0.875F).color(cache.red, cache.green, cache.blue, 1).uv(icon.getU0(), icon.getV0()).uv2(l2, i3).endVertex();
+            vb.vertex(matrix, 0.875F, height, 0.875F).color(cache.red, cache.green, cache.blue, 1).uv(icon.getU1(), icon.getV0()).uv2(l2, i3).endVertex();
+            vb.vertex(matrix, 0.875F, height, 0.125F).color(cache.red, cache.green, cache.blue, 1).uv(icon.getU1(), icon.getV1()).uv2(l2, i3).endVertex();
+        }
+    }
+
+    @Override
+    public int getViewDistance() {
+        return BlockFlopperConfig.renderFluidDistance;
+    }
+
+    protected FluidRenderCache getRenderCache(BlockEntityFlopper tile) {
+        Object renderCache = tile.getRenderCache();
+        if (renderCache instanceof FluidRenderCache && ((FluidRenderCache) renderCache).tankVersion == tile.getTankVersion()) {
+            return (FluidRenderCache) renderCache;
+        }
+        FluidRenderCache cache = new FluidRenderCache(tile);
+        tile.setRenderCache(cache);
+        return cache;
+    }
+
+    /**
+     * The render properties of the contents of a flopper tank,
+     * which only have to be recalculated when the tank changes.
+     */
+    protected static class FluidRenderCache {
+
+        private final int tankVersion;
+        private final TextureAtlasSprite icon;
+        private final RenderType renderType;
+        private final float height;
+        private final int luminosity;
+        private final float red;
+        private final float green;
+        private final float blue;
+
+        public FluidRenderCache(BlockEntityFlopper tile) {
             FluidStack fluid = tile.getTank().getFluid();
-            RenderHelpers.renderFluidContext(fluid, matrixStack, () -> {
-                float height = (fluid.getAmount() * 0.3125F) / tile.getTank().getCapacity() + 0.6875F;
-                int brightness = Math.max(combinedLight, fluid.getFluid().getAttributes().getLuminosity(fluid));
-                int l2 = brightness >> 0x10 & 0xFFFF;
-                int i3 = brightness & 0xFFFF;
-
-                TextureAtlasSprite icon = RenderHelpers.getFluidIcon(tile.getTank().getFluid(), Direction.UP);
-                Triple<Float, Float, Float> color = Helpers.intToRGB(fluid.getFluid().getAttributes().getColor(tile.getLevel(), tile.getBlockPos()));
-
-                VertexConsumer vb = buffer.getBuffer(RenderType.text(icon.atlas().location()));
-                Matrix4f matrix = matrixStack.last().pose();
-                vb.vertex(matrix, 0.125F, height, 0.125F).color(color.getLeft(), color.getMiddle(), color.getRight(), 1).uv(icon.getU0(), icon.getV1()).uv2(l2, i3).endVertex();
-                vb.vertex(matrix, 0.125F, height, 0.875F).color(color.getLeft(), color.getMiddle(), color.getRight(), 1).uv(icon.getU0(), icon.getV0()).uv2(l2, i3).endVertex();
-                vb.vertex(matrix, 0.875F, height, 0.875F).color(color.getLeft(), color.getMiddle(), color.getRight(), 1).uv(icon.getU1(), icon.getV0()).uv2(l2, i3).endVertex();
-                vb.vertex(matrix, 0.875F, height, 0.125F).color(color.getLeft(), color.getMiddle(), color.getRight(), 1).uv(icon.getU1(), icon.getV1()).uv2(l2, i3).endVertex();
-            });
+            this.tankVersion = tile.getTankVersion();
+            this.icon = RenderHelpers.getFluidIcon(fluid, Direction.UP);
+            this.renderType = RenderType.text(icon.atlas().location());
+            this.height = (fluid.getAmount() * 0.3125F) / tile.getTank().getCapacity() + 0.6875F;
+            this.luminosity = fluid.getFluid().getAttributes().getLuminosity(fluid);
+            int color = fluid.getFluid().getAttributes().getColor(tile.getLevel(), tile.getBlockPos());
+            this.red = (float) (color >> 16 & 255) / 255.0F;
+            this.green = (float) (color >> 8 & 255) / 255.0F;
+            this.blue = (float) (color & 255) / 255.0F;
         }
+
     }
 
 }
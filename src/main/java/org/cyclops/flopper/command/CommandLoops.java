@@ -0,0 +1,44 @@
+package org.cyclops.flopper.command;
+
+import com.mojang.brigadier.Command;
+import com.mojang.brigadier.builder.LiteralArgumentBuilder;
+import net.minecraft.commands.CommandSourceStack;
+import net.minecraft.commands.Commands;
+import net.minecraft.core.BlockPos;
+import net.minecraft.network.chat.Component;
+import org.cyclops.flopper.blockentity.BlockEntityFlopper;
+import org.cyclops.flopper.blockentity.FlopperLoops;
+
+import java.util.Set;
+
+/**
+ * Command for listing the floppers that are part of a loop in which fluids circulate forever.
+ * @author rubensworks
+ */
+public class CommandLoops {
+
+    private static final int MAX_LISTED = 50;
+
+    public static LiteralArgumentBuilder<CommandSourceStack> make() {
+        return Commands.literal("loops")
+                .requires(source -> source.hasPermission(2))
+                .executes(context -> show(context.getSource()));
+    }
+
+    protected static int show(CommandSourceStack source) {
+        Set<BlockEntityFlopper> looping = FlopperLoops.getLooping();
+        source.sendSuccess(Component.literal(String.format("%,d floppers are part of a loop", looping.size())), false);
+        int listed = 0;
+        for (BlockEntityFlopper flopper : looping) {
+            if (listed++ >= MAX_LISTED) {
+                source.sendSuccess(Component.literal("..."), false);
+                break;
+            }
+            BlockPos pos = flopper.getBlockPos();
+            source.sendSuccess(Component.literal(String.format("%s %s %s %s",
+                    flopper.getLevel().dimension().location(), pos.getX(), pos.getY(), pos.getZ())), false);
+        }
+        return Command.SINGLE_SUCCESS;
+    }
+
+}
@@ -0,0 +1,68 @@
+package org.cyclops.flopper.command;
+
+import com.mojang.brigadier.Command;
+import com.mojang.brigadier.arguments.IntegerArgumentType;
+import com.mojang.brigadier.builder.LiteralArgumentBuilder;
+import net.minecraft.commands.CommandSourceStack;
+import net.minecraft.commands.Commands;
+import net.minecraft.core.BlockPos;
+import net.minecraft.network.chat.Component;
+import org.cyclops.flopper.blockentity.FlopperMetrics;
+
+/**
+ * Command for showing the global flopper metrics and the most expensive floppers.
+ * @author rubensworks
+ */
+public class CommandStats {
+
+    private static final int DEFAULT_COUNT = 10;
+
+    public static LiteralArgumentBuilder<CommandSourceStack> make() {
+        return Commands.literal("stats")
+                .requires(source -> source.hasPermission(2))
+                .executes(context -> show(context.getSource(), DEFAULT_COUNT))
+                .then(Commands.argument("count", IntegerArgumentType.integer(1, 100))
+                        .executes(context -> show(context.getSource(), IntegerArgumentType.getInteger(context, "count"))))
+                .then(Commands.literal("reset")
+                        .executes(context -> reset(context.getSource())));
+    }
+
+    protected static int show(CommandSourceStack source, int count) {
+        if (!FlopperMetrics.isEnabled()) {
+            source.sendFailure(Component.literal("Flopper metrics are disabled, they can be enabled with the 'metrics' option in the general config."));
+            return 0;
+        }
+
+        source.sendSuccess(Component.literal(String.format("Totals over %,d floppers: %.3f ms, %,d successful and %,d failed transfers, %,d mB moved, %,d placed, %,d picked up",
+                FlopperMetrics.getTrackedCount(),
+                FlopperMetrics.getTotalNanos() / 1_000_000D,
+                FlopperMetrics.getTotalSuccessfulTransfers(),
+                FlopperMetrics.getTotalFailedTransfers(),
+                FlopperMetrics.getTotalMoved(),
+                FlopperMetrics.getTotalWorldPlacements(),
+                FlopperMetrics.getTotalWorldPickups())), false);
+
+        int rank = 1;
+        for (FlopperMetrics metrics : FlopperMetrics.getMostExpensive(count)) {
+            BlockPos pos = metrics.getPos();
+            source.sendSuccess(Component.literal(String.format("#%s %s %s %s %s: %.3f ms, %,d successful and %,d failed transfers, %,d mB moved, %,d placed, %,d picked up",
+                    rank++,
+                    metrics.getDimension().location(),
+                    pos.getX(), pos.getY(), pos.getZ(),
+                    metrics.getNanos() / 1_000_000D,
+                    metrics.getSuccessfulTransfers(),
+                    metrics.getFailedTransfers(),
+                    metrics.getMoved(),
+                    metrics.getWorldPlacements(),
+                    metrics.getWorldPickups())), false);
+        }
+        return Command.SINGLE_SUCCESS;
+    }
+
+    protected static int reset(CommandSourceStack source) {
+        FlopperMetrics.reset();
+        source.sendSuccess(Component.literal("Flopper metrics have been reset."), true);
+        return Command.SINGLE_SUCCESS;
+    }
+
+}
@@ -0,0 +1,286 @@
+package org.cyclops.flopper.gametest;
+
+import com.google.common.collect.Lists;
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+import net.minecraft.core.BlockPos;
+import net.minecraft.core.Direction;
+import net.minecraft.gametest.framework.GameTest;
+import net.minecraft.gametest.framework.GameTestHelper;
+import net.minecraft.world.level.block.Blocks;
+import net.minecraft.world.level.material.FluidState;
+import net.minecraft.world.level.material.Fluids;
+import net.minecraftforge.fluids.FluidStack;
+import net.minecraftforge.fluids.capability.IFluidHandler;
+import net.minecraftforge.fml.loading.FMLPaths;
+import net.minecraftforge.gametest.GameTestHolder;
+import net.minecraftforge.gametest.PrefixGameTestTemplate;
+import org.apache.logging.log4j.Level;
+import org.cyclops.flopper.Flopper;
+import org.cyclops.flopper.Reference;
+import org.cyclops.flopper.RegistryEntries;
+import org.cyclops.flopper.block.BlockFlopper;
+import org.cyclops.flopper.block.BlockFlopperConfig;
+import org.cyclops.flopper.blockentity.BlockEntityFlopper;
+import org.cyclops.flopper.blockentity.FlopperTickCounter;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Scaling benchmarks that build large flopper layouts and measure the time spent in flopper ticks.
+ * Run these with './gradlew runGameTestServer', results are written to 'flopper-benchmarks.json' in the run directory.
+ * Each benchmark has its own batch, so that they do not run at the same time.
+ * @author rubensworks
+ */
+@GameTestHolder(Reference.MOD_ID)
+@PrefixGameTestTemplate(false)
+public class GameTestsFlopperBenchmarks {
+
+    private static final String TEMPLATE = "empty_128";
+    private static final int WARMUP_TICKS = 100;
+    private static final int MEASURE_TICKS = 400;
+    private static final int TIMEOUT_TICKS = WARMUP_TICKS + MEASURE_TICKS + 100;
+
+    private static final List<JsonObject> RESULTS = Lists.newArrayList();
+
+    @GameTest(template = TEMPLATE, timeoutTicks = TIMEOUT_TICKS, batch = "flopper_benchmark_idle_1k")
+    public static void idle1k(GameTestHelper helper) {
+        List<BlockEntityFlopper> floppers = placeGrid(helper, 32, 32);
+        measure(helper, "idle_1k", floppers.size(), () -> {});
+    }
+
+    @GameTest(template = TEMPLATE, timeoutTicks = TIMEOUT_TICKS, batch = "flopper_benchmark_idle_10k")
+    public static void idle10k(GameTestHelper helper) {
+        List<BlockEntityFlopper> floppers = placeGrid(helper, 100, 100);
+        measure(helper, "idle_10k", floppers.size(), () -> {});
+    }
+
+    /**
+     * 32 chains of 64 floppers, of which the heads are refilled and the tails are emptied each tick.
+     * The tails face a stone block, so that they do not place their fluid in the world.
+     */
+    @GameTest(template = TEMPLATE, timeoutTicks = TIMEOUT_TICKS, batch = "flopper_benchmark_chains")
+    public static void chains(GameTestHelper helper) {
+        List<BlockEntityFlopper> heads = Lists.newArrayList();
+        List<BlockEntityFlopper> tails = Lists.newArrayList();
+        int count = 0;
+        for (int z = 0; z < 64; z += 2) {
+            for (int x = 0; x < 64; x++) {
+                helper.setBlock(new BlockPos(x, 0, z), Blocks.STONE);
+                BlockEntityFlopper flopper = placeFlopper(helper, new BlockPos(x, 1, z), Direction.EAST);
+                count++;
+                if (x == 0) {
+                    heads.add(flopper);
+                } else if (x == 63) {
+                    tails.add(flopper);
+                    helper.setBlock(new BlockPos(x + 1, 1, z), Blocks.STONE);
+                }
+            }
+        }
+        measure(helper, "chains_32x64", count, () -> {
+            heads.forEach(GameTestsFlopperBenchmarks::refill);
+            tails.forEach(GameTestsFlopperBenchmarks::empty);
+        });
+    }
+
+    /**
+     * Clusters of four floppers pushing into a center flopper, which pushes into a sink flopper below it.
+     * The outer floppers are refilled and the sinks are emptied each tick.
+     */
+    @GameTest(template = TEMPLATE, timeoutTicks = TIMEOUT_TICKS, batch = "flopper_benchmark_fan_in")
+    public static void fanIn(GameTestHelper helper) {
+        List<BlockEntityFlopper> feeders = Lists.newArrayList();
+        List<BlockEntityFlopper> sinks = Lists.newArrayList();
+        for (int cx = 0; cx < 32; cx++) {
+            for (int cz = 0; cz < 32; cz++) {
+                BlockPos center = new BlockPos(cx * 3 + 1, 2, cz * 3 + 1);
+                helper.setBlock(center.below(2), Blocks.STONE);
+                sinks.add(placeFlopper(helper, center.below(), Direction.DOWN));
+                placeFlopper(helper, center, Direction.DOWN);
+                for (Direction side : Direction.Plane.HORIZONTAL) {
+                    feeders.add(placeFlopper(helper, center.relative(side), side.getOpposite()));
+                }
+            }
+        }
+        measure(helper, "fan_in_1024x4", feeders.size() + sinks.size() * 2, () -> {
+            feeders.forEach(GameTestsFlopperBenchmarks::refill);
+            sinks.forEach(GameTestsFlopperBenchmarks::empty);
+        });
+    }
+
+    /**
+     * Clusters of a distributor flopper that pushes into four sink floppers around it and one below it.
+     * This enables the distributor config option.
+     * The distributors are refilled and the sinks are emptied each tick.
+     */
+    @GameTest(template = TEMPLATE, timeoutTicks = TIMEOUT_TICKS, batch = "flopper_benchmark_fan_out")
+    public static void fanOut(GameTestHelper helper) {
+        // Distributor mode is disabled by default, this leaves it enabled for the rest of the test run
+        BlockFlopperConfig.distributor = true;
+        List<BlockEntityFlopper> distributors = Lists.newArrayList();
+        List<BlockEntityFlopper> sinks = Lists.newArrayList();
+        for (int cx = 0; cx < 32; cx++) {
+            for (int cz = 0; cz < 32; cz++) {
+                BlockPos center = new BlockPos(cx * 3 + 1, 2, cz * 3 + 1);
+                helper.setBlock(center.below(2), Blocks.STONE);
+                sinks.add(placeFlopper(helper, center.below(), Direction.DOWN));
+                for (Direction side : Direction.Plane.HORIZONTAL) {
+                    helper.setBlock(center.relative(side).below(), Blocks.STONE);
+                    sinks.add(placeFlopper(helper, center.relative(side), Direction.DOWN));
+                }
+                BlockEntityFlopper distributor = placeFlopper(helper, center, Direction.DOWN);
+                distributor.cycleDistributorMode();
+                distributors.add(distributor);
+            }
+        }
+        measure(helper, "fan_out_1024x5", distributors.size() + sinks.size(), () -> {
+            distributors.forEach(GameTestsFlopperBenchmarks::refill);
+            sinks.forEach(GameTestsFlopperBenchmarks::empty);
+        });
+    }
+
+    /**
+     * A field of floppers that each pick up the lava source above them,
+     * the lava is replaced and the floppers are emptied each tick.
+     */
+    @GameTest(template = TEMPLATE, timeoutTicks = TIMEOUT_TICKS, batch = "flopper_benchmark_lava_pickup")
+    public static void lavaPickup(GameTestHelper helper) {
+        List<BlockEntityFlopper> floppers = placeGrid(helper, 32, 32);
+        for (int x = -1; x <= 32; x++) {
+            for (int z = -1; z <= 32; z++) {
+                boolean border = x < 0 || z < 0 || x == 32 || z == 32;
+                helper.setBlock(new BlockPos(x + 1, 2, z + 1), border ? Blocks.STONE : Blocks.LAVA);
+            }
+        }
+        measure(helper, "lava_pickup_1k", floppers.size(), () -> {
+            for (BlockEntityFlopper flopper : floppers) {
+                empty(flopper);
+                FluidState fluidState = helper.getLevel().getFluidState(flopper.getBlockPos().above());
+                if (!fluidState.isSource() || fluidState.getType() != Fluids.LAVA) {
+                    helper.setBlock(helper.relativePos(flopper.getBlockPos().above()), Blocks.LAVA);
+                }
+            }
+        });
+    }
+
+    /**
+     * A field of floppers that each place a water source below them,
+     * the water is removed and the floppers are refilled each tick.
+     */
+    @GameTest(template = TEMPLATE, timeoutTicks = TIMEOUT_TICKS, batch = "flopper_benchmark_world_placement")
+    public static void worldPlacement(GameTestHelper helper) {
+        List<BlockEntityFlopper> floppers = Lists.newArrayListWithExpectedSize(32 * 32);
+        for (int x = -1; x <= 32; x++) {
+            for (int z = -1; z <= 32; z++) {
+                helper.setBlock(new BlockPos(x + 1, 0, z + 1), Blocks.STONE);
+                boolean border = x < 0 || z < 0 || x == 32 || z == 32;
+                if (border) {
+                    helper.setBlock(new BlockPos(x + 1, 1, z + 1), Blocks.STONE);
+                } else {
+                    floppers.add(placeFlopper(helper, new BlockPos(x + 1, 2, z + 1), Direction.DOWN));
+                }
+            }
+        }
+        measure(helper, "world_placement_1k", floppers.size(), () -> {
+            for (BlockEntityFlopper flopper : floppers) {
+                refill(flopper);
+                helper.setBlock(helper.relativePos(flopper.getBlockPos().below()), Blocks.AIR);
+            }
+        });
+    }
+
+    protected static List<BlockEntityFlopper> placeGrid(GameTestHelper helper, int sizeX, int sizeZ) {
+        List<BlockEntityFlopper> floppers = Lists.newArrayListWithExpectedSize(sizeX * sizeZ);
+        for (int x = 0; x < sizeX; x++) {
+            for (int z = 0; z < sizeZ; z++) {
+                helper.setBlock(new BlockPos(x + 1, 0, z + 1), Blocks.STONE);
+                floppers.add(placeFlopper(helper, new BlockPos(x + 1, 1, z + 1), Direction.DOWN));
+            }
+        }
+        return floppers;
+    }
+
+    protected static BlockEntityFlopper placeFlopper(GameTestHelper helper, BlockPos pos, Direction facing) {
+        helper.setBlock(pos, RegistryEntries.BLOCK_FLOPPER.defaultBlockState().setValue(BlockFlopper.FACING, facing));
+        return (BlockEntityFlopper) helper.getBlockEntity(pos);
+    }
+
+    protected static void refill(BlockEntityFlopper flopper) {
+        flopper.getTank().fill(new FluidStack(Fluids.WATER, flopper.getTank().getCapacity()), IFluidHandler.FluidAction.EXECUTE);
+    }
+
+    protected static void empty(BlockEntityFlopper flopper) {
+        flopper.getTank().drain(Integer.MAX_VALUE, IFluidHandler.FluidAction.EXECUTE);
+    }
+
+    /**
+     * Run the layout for a number of warmup ticks, and then measure the time spent in flopper ticks for each tick.
+     * @param helper The test helper.
+     * @param name The name of the benchmark.
+     * @param floppers The number of floppers in the layout.
+     * @param eachTick Called at the start of each tick to feed the layout, this is not measured.
+     */
+    protected static void measure(GameTestHelper helper, String name, int floppers, Runnable eachTick) {
+        long[] samples = new long[MEASURE_TICKS];
+        int[] sample = {0};
+        long[] previousNanos = {0};
+        FlopperTickCounter.setForceEnabled(true);
+        helper.startSequence()
+                .thenExecuteFor(WARMUP_TICKS, () -> {
+                    eachTick.run();
+                    previousNanos[0] = FlopperTickCounter.getTotalTickNanos();
+                })
+                .thenExecuteFor(MEASURE_TICKS, () -> {
+                    long nanos = FlopperTickCounter.getTotalTickNanos();
+                    if (sample[0] < samples.length) {
+                        samples[sample[0]++] = nanos - previousNanos[0];
+                    }
+                    previousNanos[0] = nanos;
+                    eachTick.run();
+                })
+                .thenExecute(() -> {
+                    FlopperTickCounter.setForceEnabled(false);
+                    writeResult(name, floppers, Arrays.copyOf(samples, sample[0]));
+                })
+                .thenSucceed();
+    }
+
+    protected static synchronized void writeResult(String name, int floppers, long[] samples) {
+        Arrays.sort(samples);
+        double totalMs = 0;
+        for (long sample : samples) {
+            totalMs += sample / 1_000_000D;
+        }
+        JsonObject result = new JsonObject();
+        result.addProperty("name", name);
+        result.addProperty("floppers", floppers);
+        result.addProperty("ticks", samples.length);
+        result.addProperty("centralTicking", BlockFlopperConfig.centralTicking);
+        result.addProperty("avgMs", samples.length == 0 ? 0 : totalMs / samples.length);
+        result.addProperty("p99Ms", samples.length == 0 ? 0 : samples[Math.max(0, (int) Math.ceil(samples.length * 0.99) - 1)] / 1_000_000D);
+        result.addProperty("maxMs", samples.length == 0 ? 0 : samples[samples.length - 1] / 1_000_000D);
+        RESULTS.add(result);
+        Flopper.clog(String.format("Flopper benchmark %s: %s floppers, avg %.3f ms/tick, p99 %.3f ms/tick",
+                name, floppers, result.get("avgMs").getAsDouble(), result.get("p99Ms").getAsDouble()));
+
+        JsonObject root = new JsonObject();
+        JsonArray results = new JsonArray();
+        RESULTS.forEach(results::add);
+        root.add("results", results);
+        Gson gson = new GsonBuilder().setPrettyPrinting().create();
+        Path path = FMLPaths.GAMEDIR.get().resolve("flopper-benchmarks.json");
+        try (Writer writer = Files.newBufferedWriter(path)) {
+            gson.toJson(root, writer);
+        } catch (IOException e) {
+            Flopper.clog(Level.ERROR, "Could not write flopper benchmark results: " + e.getMessage());
+        }
+    }
+
+}
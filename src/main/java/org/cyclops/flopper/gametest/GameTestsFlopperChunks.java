@@ -0,0 +1,83 @@
+package org.cyclops.flopper.gametest;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Sets;
+import net.minecraft.core.BlockPos;
+import net.minecraft.core.Direction;
+import net.minecraft.gametest.framework.GameTest;
+import net.minecraft.gametest.framework.GameTestAssertException;
+import net.minecraft.gametest.framework.GameTestHelper;
+import net.minecraft.world.level.ChunkPos;
+import net.minecraft.world.level.block.Blocks;
+import net.minecraftforge.gametest.GameTestHolder;
+import net.minecraftforge.gametest.PrefixGameTestTemplate;
+import org.cyclops.flopper.Reference;
+import org.cyclops.flopper.blockentity.BlockEntityFlopper;
+import org.cyclops.flopper.blockentity.FlopperNeighbourChunks;
+
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Tests for floppers on chunk borders.
+ * Chunks can't be unloaded from within a test, so chunk unloading and loading is reported to the floppers directly.
+ * @author rubensworks
+ */
+@GameTestHolder(Reference.MOD_ID)
+@PrefixGameTestTemplate(false)
+public class GameTestsFlopperChunks {
+
+    private static final String TEMPLATE = "empty_128";
+
+    /**
+     * A row of floppers along a chunk edge that push into floppers in the neighbouring chunks.
+     * While those chunks are unloaded nothing may be pushed, and once they are loaded again the floppers resume.
+     */
+    @GameTest(template = TEMPLATE, timeoutTicks = 200, batch = "flopper_chunks")
+    public static void unloadedChunkEdge(GameTestHelper helper) {
+        // The last x coordinate of a chunk, so that the floppers to the east are in the next chunk
+        int x = 15 - Math.floorMod(helper.absolutePos(BlockPos.ZERO).getX(), 16);
+        List<BlockEntityFlopper> sources = Lists.newArrayList();
+        List<BlockEntityFlopper> targets = Lists.newArrayList();
+        Set<ChunkPos> targetChunks = Sets.newLinkedHashSet();
+        for (int z = 1; z <= 16; z++) {
+            helper.setBlock(new BlockPos(x + 1, 0, z), Blocks.STONE);
+            sources.add(GameTestsFlopperBenchmarks.placeFlopper(helper, new BlockPos(x, 1, z), Direction.EAST));
+            BlockEntityFlopper target = GameTestsFlopperBenchmarks.placeFlopper(helper, new BlockPos(x + 1, 1, z), Direction.DOWN);
+            targets.add(target);
+            targetChunks.add(new ChunkPos(target.getBlockPos()));
+        }
+
+        helper.startSequence()
+                // Wait until the floppers are loaded
+                .thenIdle(1)
+                .thenExecute(() -> {
+                    targetChunks.forEach(chunk -> FlopperNeighbourChunks.onChunkChanged(helper.getLevel(), chunk, false));
+                    sources.forEach(GameTestsFlopperBenchmarks::refill);
+                })
+                .thenIdle(40)
+                .thenExecute(() -> {
+                    for (BlockEntityFlopper source : sources) {
+                        assertTrue(source.getTank().isFull(), "A flopper pushed into an unloaded chunk at " + source.getBlockPos());
+                    }
+                    for (BlockEntityFlopper target : targets) {
+                        assertTrue(target.getTank().isEmpty(), "A flopper in an unloaded chunk was filled at " + target.getBlockPos());
+                    }
+                    targetChunks.forEach(chunk -> FlopperNeighbourChunks.onChunkChanged(helper.getLevel(), chunk, true));
+                })
+                .thenIdle(40)
+                .thenExecute(() -> {
+                    for (BlockEntityFlopper target : targets) {
+                        assertTrue(!target.getTank().isEmpty(), "A flopper did not resume after its neighbour chunk was loaded at " + target.getBlockPos());
+                    }
+                })
+                .thenSucceed();
+    }
+
+    protected static void assertTrue(boolean condition, String message) {
+        if (!condition) {
+            throw new GameTestAssertException(message);
+        }
+    }
+
+}
@@ -0,0 +1,75 @@
+package org.cyclops.flopper.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.StackTrace;
+import net.minecraft.core.BlockPos;
+import net.minecraft.core.Direction;
+import net.minecraft.resources.ResourceLocation;
+import net.minecraft.world.level.Level;
+import net.minecraft.world.level.material.Fluid;
+import net.minecraft.world.level.material.Fluids;
+import net.minecraftforge.registries.ForgeRegistries;
+
+/**
+ * Base class for the flight recorder events of floppers.
+ * These are disabled by default, and can be enabled with a JFR profile.
+ * Floppers only create these through {@link FlopperEvents}, so disabled events are never created or filled in.
+ * @author rubensworks
+ */
+@Category({"Minecraft", "Flopper"})
+@Enabled(false)
+@StackTrace(false)
+public abstract class FlopperEvent extends Event {
+
+    public static final String OUTCOME_MOVED = "moved";
+    public static final String OUTCOME_IDLE = "idle";
+
+    @Label("Dimension")
+    protected String dimension;
+    @Label("X")
+    protected int x;
+    @Label("Y")
+    protected int y;
+    @Label("Z")
+    protected int z;
+    @Label("Direction")
+    protected String direction;
+    @Label("Fluid")
+    protected String fluid;
+    @Label("Amount (mB)")
+    protected int amount;
+    @Label("Outcome")
+    protected String outcome;
+
+    /**
+     * End this event, and commit it if it is enabled.
+     * @param level The level of the flopper.
+     * @param pos The position of the flopper.
+     * @param direction The side the flopper interacted with.
+     * @param fluid The fluid that was moved or attempted to move.
+     * @param amount The moved amount in mB.
+     */
+    public void commit(Level level, BlockPos pos, Direction direction, Fluid fluid, int amount) {
+        end();
+        if (shouldCommit()) {
+            set(level, pos, direction, fluid, amount);
+            commit();
+        }
+    }
+
+    protected void set(Level level, BlockPos pos, Direction direction, Fluid fluid, int amount) {
+        this.dimension = level.dimension().location().toString();
+        this.x = pos.getX();
+        this.y = pos.getY();
+        this.z = pos.getZ();
+        this.direction = direction.getSerializedName();
+        ResourceLocation fluidId = fluid == Fluids.EMPTY ? null : ForgeRegistries.FLUIDS.getKey(fluid);
+        this.fluid = fluidId == null ? "" : fluidId.toString();
+        this.amount = amount;
+        this.outcome = amount > 0 ? OUTCOME_MOVED : OUTCOME_IDLE;
+    }
+
+}
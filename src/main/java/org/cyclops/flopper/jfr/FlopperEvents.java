@@ -0,0 +1,60 @@
+package org.cyclops.flopper.jfr;
+
+import jdk.jfr.EventType;
+
+import javax.annotation.Nullable;
+
+/**
+ * Starts flopper events, but only if they are enabled,
+ * so that floppers don't create an event for each transfer when no recording needs them.
+ * @author rubensworks
+ */
+public final class FlopperEvents {
+
+    private static final EventType UPDATE = EventType.getEventType(FlopperUpdateEvent.class);
+    private static final EventType TRANSFER = EventType.getEventType(FlopperTransferEvent.class);
+    private static final EventType WORLD_PLACEMENT = EventType.getEventType(FlopperWorldPlacementEvent.class);
+    private static final EventType WORLD_PICKUP = EventType.getEventType(FlopperWorldPickupEvent.class);
+
+    private FlopperEvents() {
+
+    }
+
+    /**
+     * @return A started update event, or null if it is disabled.
+     */
+    @Nullable
+    public static FlopperUpdateEvent beginUpdate() {
+        return UPDATE.isEnabled() ? begin(new FlopperUpdateEvent()) : null;
+    }
+
+    /**
+     * @return A started transfer event, or null if it is disabled.
+     */
+    @Nullable
+    public static FlopperTransferEvent beginTransfer() {
+        return TRANSFER.isEnabled() ? begin(new FlopperTransferEvent()) : null;
+    }
+
+    /**
+     * @return A started world placement event, or null if it is disabled.
+     */
+    @Nullable
+    public static FlopperWorldPlacementEvent beginWorldPlacement() {
+        return WORLD_PLACEMENT.isEnabled() ? begin(new FlopperWorldPlacementEvent()) : null;
+    }
+
+    /**
+     * @return A started world pickup event, or null if it is disabled.
+     */
+    @Nullable
+    public static FlopperWorldPickupEvent beginWorldPickup() {
+        return WORLD_PICKUP.isEnabled() ? begin(new FlopperWorldPickupEvent()) : null;
+    }
+
+    protected static <T extends FlopperEvent> T begin(T event) {
+        event.begin();
+        return event;
+    }
+
+}
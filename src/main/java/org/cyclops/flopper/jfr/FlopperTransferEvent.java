@@ -0,0 +1,16 @@
+package org.cyclops.flopper.jfr;
+
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * A fluid transfer between a flopper and a neighbouring tank.
+ * @author rubensworks
+ */
+@Name("org.cyclops.flopper.Transfer")
+@Label("Flopper Transfer")
+@Description("A flopper pushing fluid into or pulling fluid from a neighbouring tank")
+public class FlopperTransferEvent extends FlopperEvent {
+
+}
@@ -0,0 +1,16 @@
+package org.cyclops.flopper.jfr;
+
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * A transfer attempt of a flopper, including all of its transfers and world interactions.
+ * @author rubensworks
+ */
+@Name("org.cyclops.flopper.Update")
+@Label("Flopper Update")
+@Description("A transfer attempt of a flopper, the direction is the side the flopper faces")
+public class FlopperUpdateEvent extends FlopperEvent {
+
+}
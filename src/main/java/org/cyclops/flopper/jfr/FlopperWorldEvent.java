@@ -0,0 +1,25 @@
+package org.cyclops.flopper.jfr;
+
+import jdk.jfr.Label;
+import net.minecraft.core.BlockPos;
+import net.minecraft.core.Direction;
+import net.minecraft.world.level.Level;
+import net.minecraft.world.level.material.Fluid;
+import org.cyclops.cyclopscore.helper.FluidHelpers;
+
+/**
+ * Base class for events of floppers interacting with fluid blocks in the world.
+ * @author rubensworks
+ */
+public abstract class FlopperWorldEvent extends FlopperEvent {
+
+    @Label("Blocks")
+    protected int blocks;
+
+    @Override
+    protected void set(Level level, BlockPos pos, Direction direction, Fluid fluid, int amount) {
+        super.set(level, pos, direction, fluid, amount);
+        this.blocks = amount / FluidHelpers.BUCKET_VOLUME;
+    }
+
+}
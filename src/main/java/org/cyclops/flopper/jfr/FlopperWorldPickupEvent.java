@@ -0,0 +1,16 @@
+package org.cyclops.flopper.jfr;
+
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * A flopper picking up fluid blocks from the world.
+ * @author rubensworks
+ */
+@Name("org.cyclops.flopper.WorldPickup")
+@Label("Flopper World Pickup")
+@Description("A flopper picking up fluid blocks from the world into its tank")
+public class FlopperWorldPickupEvent extends FlopperWorldEvent {
+
+}
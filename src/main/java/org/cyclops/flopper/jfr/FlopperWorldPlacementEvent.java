@@ -0,0 +1,16 @@
+package org.cyclops.flopper.jfr;
+
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * A flopper placing fluid blocks in the world.
+ * @author rubensworks
+ */
+@Name("org.cyclops.flopper.WorldPlacement")
+@Label("Flopper World Placement")
+@Description("A flopper placing fluid from its tank as blocks in the world")
+public class FlopperWorldPlacementEvent extends FlopperWorldEvent {
+
+}
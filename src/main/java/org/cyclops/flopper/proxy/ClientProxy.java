@@ -1,8 +1,20 @@
 package org.cyclops.flopper.proxy;
 
+import net.minecraft.client.renderer.ItemBlockRenderTypes;
+import net.minecraft.client.renderer.RenderType;
+import net.minecraft.client.renderer.block.BlockModelShaper;
+import net.minecraft.client.resources.model.BakedModel;
+import net.minecraft.client.resources.model.ModelResourceLocation;
+import net.minecraft.world.level.block.state.BlockState;
+import net.minecraftforge.client.event.ModelBakeEvent;
+import net.minecraftforge.fml.event.lifecycle.FMLClientSetupEvent;
+import net.minecraftforge.fml.javafmlmod.FMLJavaModLoadingContext;
 import org.cyclops.cyclopscore.init.ModBase;
 import org.cyclops.cyclopscore.proxy.ClientProxyComponent;
 import org.cyclops.flopper.Flopper;
+import org.cyclops.flopper.RegistryEntries;
+import org.cyclops.flopper.block.BlockFlopperConfig;
+import org.cyclops.flopper.client.model.BakedModelFlopper;
 
 /**
  * Proxy for the client side.
@@ -14,6 +26,13 @@ public class ClientProxy extends ClientProxyComponent {
 
 	public ClientProxy() {
 		super(new CommonProxy());
+		// Configs are not loaded yet at this point, so they are only checked within the listeners
+		FMLJavaModLoadingContext.get().getModEventBus().addListener(this::onClientSetup);
+		FMLJavaModLoadingContext.get().getModEventBus().addListener(this::onModelBake);
+	}
+
+	protected static boolean isRenderFluidStatic() {
+		return BlockFlopperConfig.renderFluid && BlockFlopperConfig.renderFluidStatic;
 	}
 
 	@Override
@@ -21,4 +40,25 @@ public class ClientProxy extends ClientProxyComponent {
 		return Flopper._instance;
 	}
 
+	public void onClientSetup(FMLClientSetupEvent event) {
+		if (!isRenderFluidStatic()) {
+			return;
+		}
+		event.enqueueWork(() -> ItemBlockRenderTypes.setRenderLayer(RegistryEntries.BLOCK_FLOPPER,
+				renderType -> renderType == RenderType.solid() || renderType == RenderType.translucent()));
+	}
+
+	public void onModelBake(ModelBakeEvent event) {
+		if (!isRenderFluidStatic()) {
+			return;
+		}
+		for (BlockState blockState : RegistryEntries.BLOCK_FLOPPER.getStateDefinition().getPossibleStates()) {
+			ModelResourceLocation location = BlockModelShaper.stateToModelLocation(blockState);
+			BakedModel model = event.getModelRegistry().get(location);
+			if (model != null && !(model instanceof BakedModelFlopper)) {
+				event.getModelRegistry().put(location, new BakedModelFlopper(model));
+			}
+		}
+	}
+
 }